@@ -0,0 +1,84 @@
+package com.se300.ledger.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.se300.ledger.LedgerException;
+
+/**
+ * LedgerBenchmark class implementation measuring the Ledger hot paths.
+ * Contended variants run the same operation from several threads against one Ledger.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LedgerBenchmark {
+
+    @Benchmark
+    public void processTransaction(LedgerFixture fixture, Blackhole blackhole) {
+        process(fixture, blackhole);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void processTransactionContended(LedgerFixture fixture, Blackhole blackhole) {
+        process(fixture, blackhole);
+    }
+
+    /**
+     * Process one full block worth of transactions so that every invocation seals a block
+     */
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public void sealBlock(LedgerFixture fixture, Blackhole blackhole) {
+        for (int i = 0; i < 10; i++) {
+            process(fixture, blackhole);
+        }
+    }
+
+    @Benchmark
+    public Object getTransaction(LedgerFixture fixture) {
+        return fixture.ledger.getTransaction(fixture.existingTransactionId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getTransactionContended(LedgerFixture fixture) {
+        return fixture.ledger.getTransaction(fixture.existingTransactionId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void validate(LedgerFixture fixture, Blackhole blackhole) {
+        try {
+            fixture.ledger.validate();
+        } catch (LedgerException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    private static void process(LedgerFixture fixture, Blackhole blackhole) {
+        try {
+            blackhole.consume(fixture.ledger.processTransaction(fixture.randomTransfer()));
+        } catch (LedgerException e) {
+            blackhole.consume(e);
+        }
+    }
+}
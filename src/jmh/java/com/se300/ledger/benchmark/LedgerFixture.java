@@ -0,0 +1,92 @@
+package com.se300.ledger.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.se300.ledger.Account;
+import com.se300.ledger.Ledger;
+import com.se300.ledger.LedgerException;
+import com.se300.ledger.Transaction;
+
+/**
+ * LedgerFixture class implementation building a funded Ledger with a committed chain
+ * ahead of every benchmark iteration
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+@State(Scope.Benchmark)
+public class LedgerFixture {
+
+    @Param({"10", "1000"})
+    public int chainLength;
+
+    @Param({"100", "10000"})
+    public int accountCount;
+
+    @Param({"16", "1024"})
+    public int noteSize;
+
+    public Ledger ledger;
+    public Account[] accounts;
+    public String note;
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * Reset the Ledger, fund every account and commit chainLength blocks
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws LedgerException {
+        ledger = Ledger.getInstance("benchmark", "JMH benchmark ledger", "benchmark-seed");
+        ledger.reset();
+        note = "n".repeat(noteSize);
+        nextId.set(0);
+
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        accounts = new Account[accountCount];
+        int funding = (Integer.MAX_VALUE / 2) / accountCount;
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = ledger.createAccount("account-" + i);
+            ledger.processTransaction(new Transaction(nextTransactionId(), funding, 10, note, master, accounts[i]));
+        }
+
+        while (ledger.getNumberOfBlocks() < chainLength) {
+            ledger.processTransaction(randomTransfer());
+        }
+    }
+
+    /**
+     * Get unique transaction id
+     * @return String
+     */
+    public String nextTransactionId() {
+        return "tx-" + nextId.getAndIncrement();
+    }
+
+    /**
+     * Get id of a transaction that has already been processed
+     * @return String
+     */
+    public String existingTransactionId() {
+        return "tx-" + ThreadLocalRandom.current().nextLong(Math.max(1, nextId.get()));
+    }
+
+    /**
+     * Create transfer between two uniformly chosen accounts
+     * @return Transaction
+     */
+    public Transaction randomTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Account payer = accounts[random.nextInt(accountCount)];
+        Account receiver = accounts[random.nextInt(accountCount)];
+        return new Transaction(nextTransactionId(), 1, 10, note, payer, receiver);
+    }
+}
@@ -0,0 +1,89 @@
+package com.se300.ledger.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.se300.ledger.Account;
+import com.se300.ledger.BinaryMerkleEngine;
+import com.se300.ledger.LeafFormat;
+import com.se300.ledger.MerkleTrees;
+import com.se300.ledger.Transaction;
+
+/**
+ * MerkleBenchmark class implementation measuring Block hashing with each Merkle engine
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MerkleBenchmark {
+
+    @Param({"10", "1000"})
+    public int transactionCount;
+
+    @Param({"16", "1024"})
+    public int noteSize;
+
+    private final BinaryMerkleEngine binaryEngine = new BinaryMerkleEngine();
+    private List<Transaction> transactions;
+    private List<String> leaves;
+
+    @Setup
+    public void setUp() {
+        Account payer = new Account("payer", Integer.MAX_VALUE);
+        Account receiver = new Account("receiver", 0);
+        String note = "n".repeat(noteSize);
+
+        transactions = new ArrayList<>();
+        leaves = new ArrayList<>();
+        leaves.add("benchmark-seed");
+        for (int i = 0; i < transactionCount; i++) {
+            Transaction transaction = new Transaction("tx-" + i, i, 10, note, payer, receiver);
+            transactions.add(transaction);
+            leaves.add(transaction.toString());
+        }
+    }
+
+    @Benchmark
+    public String merkleTree() {
+        MerkleTrees merkleTrees = new MerkleTrees(leaves);
+        merkleTrees.merkle_tree();
+        return merkleTrees.getRoot();
+    }
+
+    @Benchmark
+    public String binaryEngineLegacyLeaves() {
+        return binaryEngine.computeRoot("benchmark-seed", transactions, LeafFormat.LEGACY_STRING);
+    }
+
+    @Benchmark
+    public String binaryEngineBinaryLeaves() {
+        return binaryEngine.computeRoot("benchmark-seed", transactions, LeafFormat.BINARY_V1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String binaryEngineContended() {
+        return binaryEngine.computeRoot("benchmark-seed", transactions, LeafFormat.BINARY_V1);
+    }
+}
@@ -10,14 +10,14 @@ package com.se300.ledger;
 public class Account {
 
     private String address;
-    private Integer balance;
+    private long balance;
 
     /**
      * Account Constructor
      * @param address
      * @param balance
      */
-    public Account(String address, Integer balance) {
+    public Account(String address, long balance) {
         this.address = address;
         this.balance = balance;
     }
@@ -41,8 +41,17 @@ public class Account {
     /**
      * Getter method for account balance
      * @return
+     * @throws ArithmeticException if the balance is outside the int range; use getLongBalance
      */
     public int getBalance() {
+        return Math.toIntExact(getLongBalance());
+    }
+
+    /**
+     * Getter method for the full account balance
+     * @return
+     */
+    public long getLongBalance() {
         return balance;
     }
 
@@ -50,7 +59,7 @@ public class Account {
      * Setter method for account balance
      * @param balance
      */
-    public void setBalance(Integer balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
 
@@ -59,6 +68,6 @@ public class Account {
      * @return
      */
     public Object clone() {
-        return new Account(this.getAddress(), this.balance);
+        return new Account(this.getAddress(), this.getLongBalance());
     }
 }
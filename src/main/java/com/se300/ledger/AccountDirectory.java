@@ -0,0 +1,85 @@
+package com.se300.ledger;
+
+/**
+ * AccountDirectory class implementation resolving addresses to the account numbers that key
+ * the account state of a Block. A ledger shares one directory between all of its Blocks and
+ * points it at its live account table, which assigns the numbers and keeps the addresses, so
+ * committed Blocks hold balances only. A Block created on its own gets a private directory
+ * that numbers addresses as they are added.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+final class AccountDirectory {
+
+    private final boolean shared;
+    private volatile AccountTable table;
+
+    /**
+     * Create a private directory numbering addresses as they are added
+     */
+    AccountDirectory() {
+        this.shared = false;
+    }
+
+    /**
+     * Create a directory backed by the ledger's live account table
+     * @param table
+     */
+    AccountDirectory(AccountTable table) {
+        this.shared = true;
+        this.table = table;
+    }
+
+    /**
+     * Point the directory at the table now holding the ledger's accounts. The table keeps
+     * the account numbers of the one it replaces.
+     * @param table
+     */
+    void setTable(AccountTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Get the account number of the address
+     * @param address
+     * @return account number, or -1 if the directory has no such address
+     */
+    int indexOf(String address) {
+        AccountTable accounts = table;
+        return accounts == null || address == null ? -1 : accounts.indexOf(address);
+    }
+
+    /**
+     * Get the address given the account number
+     * @param id
+     * @return address, or Null if no account has the number
+     */
+    String addressOf(int id) {
+        AccountTable accounts = table;
+        return accounts == null ? null : accounts.addressOf(id);
+    }
+
+    /**
+     * Get the account number of the address, numbering it first if it is new
+     * @param address
+     * @return account number
+     * @throws IllegalArgumentException if the directory is the ledger's and has no such
+     * address, since only the ledger creates its accounts
+     */
+    synchronized int register(String address) {
+        if (shared) {
+            int id = indexOf(address);
+            if (id < 0) {
+                throw new IllegalArgumentException("Account Does Not Exist: " + address);
+            }
+            return id;
+        }
+        if (table == null) {
+            table = new HeapAccountTable();
+        }
+        table.putIfAbsent(address, new Account(address, 0));
+        return table.indexOf(address);
+    }
+}
@@ -0,0 +1,461 @@
+package com.se300.ledger;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * AccountState class implementation representing the accounts held by a Block.
+ * Balances are stored as primitive longs by account number in a persistent radix trie, so
+ * that a new Block shares every unchanged page of balances with its parent and only copies
+ * the pages holding the accounts it modifies. Addresses are not kept in the state; they are
+ * resolved through the AccountDirectory shared by the Blocks of a ledger.
+ * A state is built by one thread and published once frozen. Frozen state is read-only: it
+ * hands out Accounts whose setters throw, and rejects puts and removes, so the balances of
+ * a committed Block cannot be changed through the Block or leak into the Blocks that share them.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+class AccountState extends AbstractMap<String, Account> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final AccountDirectory directory;
+    // The level of the root page gives the depth of the trie
+    private Node root;
+    private int size;
+    // Sum of the balances, kept up to date by every balance change
+    private long total;
+    private volatile boolean frozen;
+
+    /**
+     * Create empty account state numbering its addresses itself
+     */
+    AccountState() {
+        this(new AccountDirectory());
+    }
+
+    /**
+     * Create empty account state resolving addresses through the given directory
+     * @param directory
+     */
+    AccountState(AccountDirectory directory) {
+        this.directory = directory;
+        this.root = new Leaf(this);
+    }
+
+    /**
+     * Create account state sharing every page of balances with the given parent state
+     * @param parent
+     */
+    AccountState(AccountState parent) {
+        this.directory = parent.directory;
+        this.root = parent.root;
+        this.size = parent.size;
+        this.total = parent.total;
+    }
+
+    /**
+     * Make the state read-only once the owning Block has been committed
+     */
+    void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * Get the account number of the address
+     * @param address
+     * @return account number, or -1 if the directory has no such address
+     */
+    int indexOf(String address) {
+        return directory.indexOf(address);
+    }
+
+    /**
+     * Check whether the state holds the account with the given number
+     * @param id
+     * @return boolean
+     */
+    boolean contains(int id) {
+        Leaf leaf = leaf(id);
+        return leaf != null && (leaf.present & (1 << (id & MASK))) != 0;
+    }
+
+    /**
+     * Get the balance of the account with the given number
+     * @param id
+     * @return balance, zero if the state does not hold the account
+     */
+    long getLongBalance(int id) {
+        Leaf leaf = leaf(id);
+        return leaf == null ? 0 : leaf.balances[id & MASK];
+    }
+
+    /**
+     * Set the balance of the account with the given number, adding the account if the
+     * state does not hold it. Pages inherited from the parent state are copied first.
+     * @param id
+     * @param balance
+     */
+    void setBalance(int id, long balance) {
+        Leaf leaf = writableLeaf(id);
+        int bit = 1 << (id & MASK);
+        total += balance - leaf.balances[id & MASK];
+        leaf.balances[id & MASK] = balance;
+        if ((leaf.present & bit) == 0) {
+            leaf.present |= bit;
+            size++;
+        }
+    }
+
+    /**
+     * Get the sum of the balances as kept up to date by each balance change
+     * @return long
+     */
+    long totalBalance() {
+        return total;
+    }
+
+    /**
+     * Sum the balances of every account again, without resolving addresses
+     * @return long
+     */
+    long sumBalances() {
+        return total(root);
+    }
+
+    private static long total(Node node) {
+        long total = 0;
+        if (node instanceof Leaf leaf) {
+            for (long balance : leaf.balances) {
+                total += balance;
+            }
+        } else {
+            for (Node child : ((Branch) node).children) {
+                if (child != null) {
+                    total += total(child);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Get Account by address. While the state is being built the Account reads and writes
+     * the balance held by the state; once frozen, the Account returned is read-only.
+     * @param key
+     * @return Account or Null
+     */
+    @Override
+    public Account get(Object key) {
+        if (!(key instanceof String address)) {
+            return null;
+        }
+        int id = directory.indexOf(address);
+        return contains(id) ? account(id, address) : null;
+    }
+
+    private Account account(int id, String address) {
+        if (frozen) {
+            return new ReadOnlyAccount(address, getLongBalance(id));
+        }
+        return new StateAccount(this, id, address);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String address && contains(directory.indexOf(address));
+    }
+
+    /**
+     * Add the account or overwrite its balance. Only the balance of the given Account is
+     * kept; use get for the Account backed by the state.
+     * @param address
+     * @param account
+     * @return copy of the previous Account or Null
+     */
+    @Override
+    public Account put(String address, Account account) {
+        checkNotFrozen();
+        int id = directory.indexOf(address);
+        if (id < 0) {
+            id = directory.register(address);
+        }
+        Account previous = contains(id) ? new Account(address, getLongBalance(id)) : null;
+        setBalance(id, account.getLongBalance());
+        return previous;
+    }
+
+    @Override
+    public Account putIfAbsent(String address, Account account) {
+        checkNotFrozen();
+        int id = directory.indexOf(address);
+        if (contains(id)) {
+            return account(id, address);
+        }
+        put(address, account);
+        return null;
+    }
+
+    /**
+     * Remove the Account with the given address
+     * @param key
+     * @return copy of the removed Account or Null
+     */
+    @Override
+    public Account remove(Object key) {
+        checkNotFrozen();
+        if (!(key instanceof String address)) {
+            return null;
+        }
+        int id = directory.indexOf(address);
+        if (!contains(id)) {
+            return null;
+        }
+        Account previous = new Account(address, getLongBalance(id));
+        Leaf leaf = writableLeaf(id);
+        leaf.present &= ~(1 << (id & MASK));
+        total -= leaf.balances[id & MASK];
+        leaf.balances[id & MASK] = 0;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Account>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Account>> iterator() {
+                return new Iterator<>() {
+                    private long next = nextId(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Account> next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        int id = (int) next;
+                        next = nextId(next + 1);
+                        String address = directory.addressOf(id);
+                        return new SimpleImmutableEntry<>(address, account(id, address));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Visit the balance of every account in account number order without copying or boxing
+     * @param visitor
+     */
+    void forEachBalance(BalanceVisitor visitor) {
+        for (long id = nextId(0); id >= 0; id = nextId(id + 1)) {
+            visitor.visit(directory.addressOf((int) id), getLongBalance((int) id));
+        }
+    }
+
+    /**
+     * Find the first account number at or after the given one held by the state
+     * @param from
+     * @return account number, or -1 if there is none
+     */
+    private long nextId(long from) {
+        Node top = root;
+        long limit = 1L << (BITS * (top.level + 1));
+        while (from < limit) {
+            Node node = top;
+            while (node instanceof Branch branch) {
+                int shift = BITS * branch.level;
+                Node child = branch.children[(int) (from >>> shift) & MASK];
+                if (child == null) {
+                    break;
+                }
+                node = child;
+            }
+            if (node instanceof Branch branch) {
+                //Skip the range of the missing page
+                int shift = BITS * branch.level;
+                from = ((from >>> shift) + 1) << shift;
+                continue;
+            }
+            int present = ((Leaf) node).present & (-1 << (int) (from & MASK));
+            if (present != 0) {
+                return (from & ~MASK) | Integer.numberOfTrailingZeros(present);
+            }
+            from = (from | MASK) + 1;
+        }
+        return -1;
+    }
+
+    private Leaf leaf(int id) {
+        Node node = root;
+        if (id < 0 || ((long) id >>> (BITS * (node.level + 1))) != 0) {
+            return null;
+        }
+        while (node instanceof Branch branch) {
+            node = branch.children[(id >>> (BITS * branch.level)) & MASK];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Get the page holding the account number for writing, growing the trie and copying
+     * the pages on the path that the state does not own yet
+     */
+    private Leaf writableLeaf(int id) {
+        checkNotFrozen();
+        Node top = root;
+        while (((long) id >>> (BITS * (top.level + 1))) != 0) {
+            Branch grown = new Branch(this, top.level + 1);
+            grown.children[0] = top;
+            top = grown;
+        }
+        top = own(top);
+        root = top;
+
+        Node node = top;
+        while (node instanceof Branch branch) {
+            int slot = (id >>> (BITS * branch.level)) & MASK;
+            Node child = branch.children[slot];
+            if (child == null) {
+                child = branch.level == 1 ? new Leaf(this) : new Branch(this, branch.level - 1);
+            } else {
+                child = own(child);
+            }
+            branch.children[slot] = child;
+            node = child;
+        }
+        return (Leaf) node;
+    }
+
+    private Node own(Node node) {
+        if (node.owner == this) {
+            return node;
+        }
+        return node instanceof Leaf leaf ? new Leaf(this, leaf) : new Branch(this, (Branch) node);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Account state of a committed Block is read-only");
+        }
+    }
+
+    /**
+     * Page of the trie; pages are changed in place only by the state that created them
+     */
+    private abstract static class Node {
+        final AccountState owner;
+        // Zero for leaves; a branch at level n indexes its children by bits 5n to 5n + 4
+        final int level;
+
+        Node(AccountState owner, int level) {
+            this.owner = owner;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Page holding the balances of 32 consecutive account numbers
+     */
+    private static final class Leaf extends Node {
+        final long[] balances;
+        // Bit n is set if the state holds the account in slot n
+        int present;
+
+        Leaf(AccountState owner) {
+            super(owner, 0);
+            this.balances = new long[WIDTH];
+        }
+
+        Leaf(AccountState owner, Leaf source) {
+            super(owner, 0);
+            this.balances = source.balances.clone();
+            this.present = source.present;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node[] children;
+
+        Branch(AccountState owner, int level) {
+            super(owner, level);
+            this.children = new Node[WIDTH];
+        }
+
+        Branch(AccountState owner, Branch source) {
+            super(owner, source.level);
+            this.children = source.children.clone();
+        }
+    }
+
+    /**
+     * Account whose balance lives in a state that is still being built
+     */
+    private static final class StateAccount extends Account {
+
+        private final AccountState state;
+        private final int id;
+
+        StateAccount(AccountState state, int id, String address) {
+            super(address, 0);
+            this.state = state;
+            this.id = id;
+        }
+
+        @Override
+        public long getLongBalance() {
+            return state.getLongBalance(id);
+        }
+
+        @Override
+        public void setBalance(long balance) {
+            state.setBalance(id, balance);
+        }
+    }
+
+    /**
+     * Account of a committed Block, whose balance can no longer change
+     */
+    private static final class ReadOnlyAccount extends Account {
+
+        ReadOnlyAccount(String address, long balance) {
+            super(address, balance);
+        }
+
+        @Override
+        public void setAddress(String address) {
+            throw new UnsupportedOperationException("Account of a committed Block is read-only");
+        }
+
+        @Override
+        public void setBalance(long balance) {
+            throw new UnsupportedOperationException("Account of a committed Block is read-only");
+        }
+    }
+}
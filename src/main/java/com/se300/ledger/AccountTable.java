@@ -0,0 +1,344 @@
+package com.se300.ledger;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * AccountTable class implementation holding the live account state of the block that is
+ * being built. Each address is given a dense account number when the account is created and
+ * the balance is stored as a primitive long by account number; subclasses decide where the
+ * index and balances live. Account numbers are never reused, so the table also serves as the
+ * ledger's address dictionary for state keyed by account number.
+ * Accounts handed out by the table read and write the stored balance directly, so debits
+ * and credits do not allocate. Accounts changed since the last commit are listed so that
+ * only they are copied into the account state of the block being sealed.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+abstract class AccountTable extends AbstractMap<String, Account> {
+
+    // Adding accounts takes the write lock; lookups read the index optimistically
+    private final StampedLock lock = new StampedLock();
+    private volatile int size;
+
+    // Accounts changed in the current epoch; an epoch ends when the block is committed
+    private int epoch = 1;
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+
+    /**
+     * Find the account number of the address. May run while an account is being added;
+     * callers validate the result against the lock.
+     * @param address
+     * @return account number, or -1 if the index has no such address
+     */
+    abstract int find(String address);
+
+    /**
+     * Store a new account under the given number and add it to the index.
+     * Caller holds the write lock.
+     */
+    abstract void append(int id, String address, long balance);
+
+    abstract String getAddress(int id);
+
+    abstract long getBalance(int id);
+
+    abstract void storeBalance(int id, long balance);
+
+    abstract int getEpoch(int id);
+
+    abstract void setEpoch(int id, int epoch);
+
+    abstract int getDirty(int position);
+
+    abstract void setDirty(int position, int id);
+
+    /**
+     * Add the given committed accounts without listing them as changed
+     * @param accounts
+     */
+    void load(Map<String, Account> accounts) {
+        long stamp = lock.writeLock();
+        try {
+            for (Account account : accounts.values()) {
+                add(account.getAddress(), account.getLongBalance(), false);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Add every account of the given table, keeping accounts changed in its current
+     * epoch listed as changed. Caller holds the ledger's write lock.
+     * @param source
+     */
+    void load(AccountTable source) {
+        long stamp = lock.writeLock();
+        try {
+            for (int id = 0; id < source.size; id++) {
+                add(source.getAddress(id), source.getBalance(id), source.getEpoch(id) == source.epoch);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the account number of the address
+     * @param address
+     * @return account number, or -1 if the table has no such account
+     */
+    int indexOf(String address) {
+        long stamp = lock.tryOptimisticRead();
+        int id = find(address);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = find(address);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Get the account number of the Account, without a lookup when the table backs it
+     * @param account
+     * @return account number, or -1 if the table has no such account
+     */
+    int idOf(Account account) {
+        if (account instanceof TableAccount tableAccount && tableAccount.table == this) {
+            return tableAccount.id;
+        }
+        String address = account.getAddress();
+        return address == null ? -1 : indexOf(address);
+    }
+
+    /**
+     * Get the address given the account number
+     * @param id
+     * @return address, or Null if no account has the number
+     */
+    String addressOf(int id) {
+        return id < 0 || id >= size ? null : getAddress(id);
+    }
+
+    /**
+     * Get Account backed by the table. The Account reads and writes its balance in the
+     * table for as long as the table holds the live state.
+     * @param key
+     * @return Account or Null
+     */
+    @Override
+    public Account get(Object key) {
+        if (!(key instanceof String address)) {
+            return null;
+        }
+        int id = indexOf(address);
+        return id < 0 ? null : new TableAccount(this, id, address);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String address && indexOf(address) >= 0;
+    }
+
+    /**
+     * Add the account or overwrite its balance. Only the balance of the given Account is
+     * kept; use get for the Account backed by the table.
+     * @param address
+     * @param account
+     * @return copy of the previous Account or Null
+     */
+    @Override
+    public Account put(String address, Account account) {
+        long stamp = lock.writeLock();
+        try {
+            int id = find(address);
+            if (id < 0) {
+                add(address, account.getLongBalance(), true);
+                return null;
+            }
+            Account previous = new Account(address, getBalance(id));
+            setBalance(id, account.getLongBalance());
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Account putIfAbsent(String address, Account account) {
+        long stamp = lock.writeLock();
+        try {
+            int id = find(address);
+            if (id >= 0) {
+                return new TableAccount(this, id, address);
+            }
+            add(address, account.getLongBalance(), true);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Append an account. Caller holds the write lock.
+     */
+    private void add(String address, long balance, boolean dirty) {
+        int id = size;
+        append(id, address, balance);
+        size = id + 1;
+        if (dirty) {
+            markDirty(id);
+        }
+    }
+
+    /**
+     * Set the balance of an account. Callers changing the same account hold a common lock.
+     * @param id
+     * @param balance
+     */
+    void setBalance(int id, long balance) {
+        storeBalance(id, balance);
+        markDirty(id);
+    }
+
+    private void markDirty(int id) {
+        if (getEpoch(id) != epoch) {
+            setEpoch(id, epoch);
+            //Each account is listed at most once per epoch, so the list never outgrows the table
+            setDirty(dirtyCount.getAndIncrement(), id);
+        }
+    }
+
+    /**
+     * Copy the balance of every account changed since the last commit into the given account
+     * state, which shares the table's account numbers, and start a new epoch. Caller holds
+     * the ledger's write lock, so no balance is changing.
+     * @param accounts
+     */
+    void commitTo(AccountState accounts) {
+        int count = dirtyCount.get();
+        for (int i = 0; i < count; i++) {
+            int id = getDirty(i);
+            accounts.setBalance(id, getBalance(id));
+        }
+        dirtyCount.set(0);
+        epoch++;
+    }
+
+    /**
+     * Append the balance of every account changed since the last commit to the history.
+     * Caller holds the ledger's write lock, so no balance is changing.
+     * @param history
+     * @param blockNumber
+     */
+    void recordChanges(BalanceHistory history, int blockNumber) {
+        int count = dirtyCount.get();
+        for (int i = 0; i < count; i++) {
+            int id = getDirty(i);
+            history.record(id, blockNumber, getBalance(id));
+        }
+    }
+
+    /**
+     * Append the balance of every account to the history
+     * @param history
+     * @param blockNumber
+     */
+    void recordAll(BalanceHistory history, int blockNumber) {
+        for (int id = 0; id < size; id++) {
+            history.record(id, blockNumber, getBalance(id));
+        }
+    }
+
+    /**
+     * Check whether the Account is backed by this table
+     * @param account
+     * @return boolean
+     */
+    boolean owns(Account account) {
+        return account instanceof TableAccount tableAccount && tableAccount.table == this;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Account>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Account>> iterator() {
+                int count = size;
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Account> next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        String address = getAddress(next);
+                        return new SimpleImmutableEntry<>(address, new TableAccount(AccountTable.this, next++, address));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Spread the address hash over the low bits used to pick an index slot
+     */
+    static int spread(String address) {
+        int h = address.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Account whose balance lives in the table
+     */
+    private static final class TableAccount extends Account {
+
+        private final AccountTable table;
+        private final int id;
+
+        TableAccount(AccountTable table, int id, String address) {
+            super(address, 0);
+            this.table = table;
+            this.id = id;
+        }
+
+        @Override
+        public long getLongBalance() {
+            return table.getBalance(id);
+        }
+
+        @Override
+        public void setBalance(long balance) {
+            table.setBalance(id, balance);
+        }
+    }
+}
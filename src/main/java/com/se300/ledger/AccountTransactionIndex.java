@@ -0,0 +1,103 @@
+package com.se300.ledger;
+
+import java.util.Arrays;
+
+/**
+ * AccountTransactionIndex class implementation listing, for each account number, the
+ * position of every committed Transaction the account paid or received. A position packs
+ * the block number and the index of the Transaction in the block. Positions of an account
+ * are appended in chain order as blocks are sealed, so a page starting at any block is found
+ * by binary search.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+final class AccountTransactionIndex {
+
+    private static final int INITIAL_ACCOUNTS = 16;
+    private static final int INITIAL_POSITIONS = 4;
+
+    private long[][] positions = new long[INITIAL_ACCOUNTS][];
+    private int[] counts = new int[INITIAL_ACCOUNTS];
+
+    static long position(int blockNumber, int index) {
+        return ((long) blockNumber << 32) | index;
+    }
+
+    static int blockNumber(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int index(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Append the position of a Transaction of the account. Positions are added in chain
+     * order. Caller holds the ledger's write lock.
+     * @param id
+     * @param blockNumber
+     * @param index
+     */
+    void add(int id, int blockNumber, int index) {
+        if (id >= counts.length) {
+            int capacity = Math.max(id + 1, counts.length * 2);
+            positions = Arrays.copyOf(positions, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        long[] accountPositions = positions[id];
+        int count = counts[id];
+        if (accountPositions == null) {
+            accountPositions = new long[INITIAL_POSITIONS];
+            positions[id] = accountPositions;
+        } else if (count == accountPositions.length) {
+            accountPositions = Arrays.copyOf(accountPositions, 2 * accountPositions.length);
+            positions[id] = accountPositions;
+        }
+        accountPositions[count] = position(blockNumber, index);
+        counts[id] = count + 1;
+    }
+
+    /**
+     * Get the number of positions of the account
+     * @param id
+     * @return int
+     */
+    int size(int id) {
+        return id < 0 || id >= counts.length ? 0 : counts[id];
+    }
+
+    /**
+     * Get a position of the account
+     * @param id
+     * @param i
+     * @return packed block number and index
+     */
+    long get(int id, int i) {
+        return positions[id][i];
+    }
+
+    /**
+     * Find the first position of the account at or after the given block and index
+     * @param id
+     * @param blockNumber
+     * @param index
+     * @return index into the account's positions, size(id) if there is none
+     */
+    int firstAtOrAfter(int id, int blockNumber, int index) {
+        int low = 0;
+        int high = size(id);
+        long target = position(blockNumber, index);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (positions[id][middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
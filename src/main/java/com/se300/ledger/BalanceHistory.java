@@ -0,0 +1,78 @@
+package com.se300.ledger;
+
+import java.util.Arrays;
+
+/**
+ * BalanceHistory class implementation recording, for each account number, the balance the
+ * account had after every block that changed it. Entries of an account are appended in
+ * block order, so the balance as of any block is found by binary search over the blocks
+ * that changed the account, without keeping per-block account state.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+final class BalanceHistory {
+
+    private static final int INITIAL_ACCOUNTS = 16;
+    private static final int INITIAL_ENTRIES = 2;
+
+    // Entries of account n interleave block number and balance after the block
+    private long[][] entries = new long[INITIAL_ACCOUNTS][];
+    private int[] counts = new int[INITIAL_ACCOUNTS];
+
+    /**
+     * Append the balance of the account after the given block. Blocks are recorded in
+     * increasing order. Caller holds the ledger's write lock.
+     * @param id
+     * @param blockNumber
+     * @param balance
+     */
+    void record(int id, int blockNumber, long balance) {
+        if (id >= counts.length) {
+            int capacity = Math.max(id + 1, counts.length * 2);
+            entries = Arrays.copyOf(entries, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+
+        long[] accountEntries = entries[id];
+        int count = counts[id];
+        if (accountEntries == null) {
+            accountEntries = new long[2 * INITIAL_ENTRIES];
+            entries[id] = accountEntries;
+        } else if (2 * count == accountEntries.length) {
+            accountEntries = Arrays.copyOf(accountEntries, 2 * accountEntries.length);
+            entries[id] = accountEntries;
+        }
+        accountEntries[2 * count] = blockNumber;
+        accountEntries[2 * count + 1] = balance;
+        counts[id] = count + 1;
+    }
+
+    /**
+     * Get the balance of the account as of the given block
+     * @param id
+     * @param blockNumber
+     * @return balance after the newest block up to blockNumber that changed the account,
+     * or Null if the account was created after the block
+     */
+    Long getBalance(int id, int blockNumber) {
+        if (id < 0 || id >= counts.length) {
+            return null;
+        }
+        long[] accountEntries = entries[id];
+        int low = 0;
+        int high = counts[id] - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (accountEntries[2 * middle] <= blockNumber) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found < 0 ? null : accountEntries[2 * found + 1];
+    }
+}
@@ -0,0 +1,108 @@
+package com.se300.ledger;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * BalanceSnapshot class implementation representing the account balances of a committed
+ * Block as a read-only map. The snapshot is created once when the Block is sealed and reads
+ * the Block's frozen account state directly, so every reader shares it and no balances are
+ * copied. Use forEachBalance to walk the balances as primitives.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public final class BalanceSnapshot extends AbstractMap<String, Integer> {
+
+    private final int blockNumber;
+    private final AccountState accounts;
+
+    /**
+     * BalanceSnapshot Constructor
+     * @param blockNumber
+     * @param accounts frozen account state of the Block
+     */
+    BalanceSnapshot(int blockNumber, AccountState accounts) {
+        this.blockNumber = blockNumber;
+        this.accounts = accounts;
+    }
+
+    /**
+     * Getter method for the number of the Block the balances were sealed with
+     * @return
+     */
+    public int getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * Get the balance of an account
+     * @param address
+     * @return balance, or Null if the account does not exist
+     */
+    public Long getLongBalance(String address) {
+        int id = accounts.indexOf(address);
+        return accounts.contains(id) ? accounts.getLongBalance(id) : null;
+    }
+
+    /**
+     * Visit the balance of every account without building a map or boxing balances
+     * @param visitor
+     */
+    public void forEachBalance(BalanceVisitor visitor) {
+        accounts.forEachBalance(visitor);
+    }
+
+    @Override
+    public Integer get(Object key) {
+        Long balance = key instanceof String address ? getLongBalance(address) : null;
+        return balance == null ? null : Math.toIntExact(balance);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return accounts.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return accounts.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Integer> action) {
+        accounts.forEachBalance((address, balance) -> action.accept(address, Math.toIntExact(balance)));
+    }
+
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Integer>> iterator() {
+                Iterator<Map.Entry<String, Account>> iterator = accounts.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, Integer> next() {
+                        Map.Entry<String, Account> entry = iterator.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().getBalance());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return accounts.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.se300.ledger;
+
+/**
+ * BalanceVisitor interface receiving account balances one at a time, so that callers can
+ * walk a BalanceSnapshot without building a map or boxing balances
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+@FunctionalInterface
+public interface BalanceVisitor {
+
+    /**
+     * Receive the balance of one account
+     * @param address
+     * @param balance
+     */
+    void visit(String address, long balance);
+}
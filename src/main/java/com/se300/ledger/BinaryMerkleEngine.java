@@ -0,0 +1,223 @@
+package com.se300.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BinaryMerkleEngine class implementation computing Block hashes over raw SHA-256 digests.
+ * Interior nodes are kept as 32 byte digests in a reusable per-thread buffer and only the
+ * root is turned into a String. Parent nodes hash the ASCII hex form of their children,
+ * written into a scratch buffer, so roots are identical to those of MerkleTrees.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class BinaryMerkleEngine implements MerkleEngine {
+
+    static final int DIGEST_LENGTH = 32;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Compute Merkle root over the ledger seed followed by the Block transactions
+     * @param seed
+     * @param transactions
+     * @param leafFormat
+     * @return String representing hex encoded Merkle root
+     */
+    @Override
+    public String computeRoot(String seed, List<Transaction> transactions, LeafFormat leafFormat) {
+
+        Workspace workspace = WORKSPACE.get();
+        MessageDigest digest = workspace.digest;
+        //Drop input left behind by an earlier call on this thread that failed part way
+        digest.reset();
+
+        //Hash pairs of leaves into the first level of nodes
+        int leafCount = transactions.size() + 1;
+        int nodeCount = (leafCount + 1) / 2;
+        byte[] nodes = workspace.nodes(nodeCount);
+
+        for (int i = 0; i < nodeCount; i++) {
+            int left = 2 * i;
+            updateLeaf(workspace, seed, transactions, left, leafFormat);
+            if (left + 1 < leafCount) {
+                updateLeaf(workspace, seed, transactions, left + 1, leafFormat);
+            }
+            finish(digest, nodes, i);
+        }
+
+        //Hash pairs of nodes in place until only the root is left
+        byte[] hexPair = workspace.hexPair;
+        while (nodeCount != 1) {
+            int parentCount = (nodeCount + 1) / 2;
+            for (int i = 0; i < parentCount; i++) {
+                int left = 2 * i;
+                int length = writeHex(nodes, left, hexPair, 0);
+                if (left + 1 < nodeCount) {
+                    length += writeHex(nodes, left + 1, hexPair, length);
+                }
+                digest.update(hexPair, 0, length);
+                finish(digest, nodes, i);
+            }
+            nodeCount = parentCount;
+        }
+
+        return toHex(nodes, 0);
+    }
+
+    /**
+     * Compute every level of the tree above the leaves, hashed the same way as computeRoot
+     * @param seed
+     * @param transactions
+     * @param leafFormat
+     * @return packed digests per level, from the first level of nodes up to the level holding the root
+     */
+    static byte[][] computeLevels(String seed, List<Transaction> transactions, LeafFormat leafFormat) {
+
+        Workspace workspace = WORKSPACE.get();
+        MessageDigest digest = workspace.digest;
+        //Drop input left behind by an earlier call on this thread that failed part way
+        digest.reset();
+        List<byte[]> levels = new ArrayList<>();
+
+        int leafCount = transactions.size() + 1;
+        int nodeCount = (leafCount + 1) / 2;
+        byte[] nodes = new byte[nodeCount * DIGEST_LENGTH];
+        for (int i = 0; i < nodeCount; i++) {
+            int left = 2 * i;
+            updateLeaf(workspace, seed, transactions, left, leafFormat);
+            if (left + 1 < leafCount) {
+                updateLeaf(workspace, seed, transactions, left + 1, leafFormat);
+            }
+            finish(digest, nodes, i);
+        }
+        levels.add(nodes);
+
+        byte[] hexPair = workspace.hexPair;
+        while (nodeCount != 1) {
+            int parentCount = (nodeCount + 1) / 2;
+            byte[] parents = new byte[parentCount * DIGEST_LENGTH];
+            for (int i = 0; i < parentCount; i++) {
+                int left = 2 * i;
+                int length = writeHex(nodes, left, hexPair, 0);
+                if (left + 1 < nodeCount) {
+                    length += writeHex(nodes, left + 1, hexPair, length);
+                }
+                digest.update(hexPair, 0, length);
+                finish(digest, parents, i);
+            }
+            levels.add(parents);
+            nodes = parents;
+            nodeCount = parentCount;
+        }
+
+        return levels.toArray(new byte[0][]);
+    }
+
+    /**
+     * Get the bytes hashed for a transaction leaf
+     * @param transaction
+     * @param leafFormat
+     * @return byte array holding the encoded leaf
+     */
+    static byte[] encodeLeaf(Transaction transaction, LeafFormat leafFormat) {
+        if (leafFormat == LeafFormat.LEGACY_STRING) {
+            return transaction.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return TransactionCodec.encode(transaction);
+    }
+
+    /**
+     * Feed encoded leaf into the digest, where leaf 0 is the seed and leaf n is transaction n - 1
+     */
+    private static void updateLeaf(Workspace workspace, String seed, List<Transaction> transactions,
+                                   int index, LeafFormat leafFormat) {
+        if (index == 0) {
+            workspace.digest.update(seed.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        Transaction transaction = transactions.get(index - 1);
+        if (leafFormat == LeafFormat.LEGACY_STRING) {
+            workspace.digest.update(transaction.toString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            ByteBuffer buffer = workspace.leafBuffer(TransactionCodec.encodedLength(transaction));
+            TransactionCodec.encode(transaction, buffer);
+            buffer.flip();
+            workspace.digest.update(buffer);
+        }
+    }
+
+    private static void finish(MessageDigest digest, byte[] nodes, int index) {
+        try {
+            digest.digest(nodes, index * DIGEST_LENGTH, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Write ASCII hex of the node at the given index into the target buffer
+     * @return number of bytes written
+     */
+    static int writeHex(byte[] nodes, int index, byte[] target, int offset) {
+        int start = index * DIGEST_LENGTH;
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            int b = nodes[start + i] & 0xff;
+            target[offset + 2 * i] = HEX_DIGITS[b >>> 4];
+            target[offset + 2 * i + 1] = HEX_DIGITS[b & 0x0f];
+        }
+        return 2 * DIGEST_LENGTH;
+    }
+
+    /**
+     * Hex encode the node at the given index
+     */
+    static String toHex(byte[] nodes, int index) {
+        byte[] hex = new byte[2 * DIGEST_LENGTH];
+        writeHex(nodes, index, hex, 0);
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Per-thread digest instance and node buffers reused across Blocks
+     */
+    private static final class Workspace {
+
+        final MessageDigest digest;
+        final byte[] hexPair = new byte[4 * DIGEST_LENGTH];
+        private byte[] nodes = new byte[16 * DIGEST_LENGTH];
+        private ByteBuffer leafBuffer = ByteBuffer.allocate(256);
+
+        Workspace() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        byte[] nodes(int count) {
+            if (nodes.length < count * DIGEST_LENGTH) {
+                nodes = new byte[count * DIGEST_LENGTH];
+            }
+            return nodes;
+        }
+
+        ByteBuffer leafBuffer(int length) {
+            if (leafBuffer.capacity() < length) {
+                leafBuffer = ByteBuffer.allocate(length);
+            }
+            leafBuffer.clear();
+            return leafBuffer;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.se300.ledger;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,12 +13,29 @@ import java.util.Map;
  */
 public class Block {
 
+    public static final int DEFAULT_MAX_TRANSACTIONS = 10;
+
     private Integer blockNumber;
     private String previousHash;
     private String hash;
-    private final Map<String,Account> accountBalanceMap = new HashMap<String,Account>();
+    // Dropped once the block falls out of the ledger's account state retention window
+    private volatile AccountState accountBalanceMap;
+    // Live account state while the block is being built, replaced by accountBalanceMap on commit
+    private volatile AccountTable liveAccounts;
     private final List<Transaction> transactionList = new ArrayList<Transaction>();
     private Block previousBlock;
+    private LeafFormat leafFormat = LeafFormat.LEGACY_STRING;
+    private int maxTransactions = DEFAULT_MAX_TRANSACTIONS;
+    private boolean sealedByAge;
+    private byte[][] merkleLevels;
+    // Number of accounts in the ledger when the block was sealed
+    private int accountCount;
+    // Length of the write-ahead log when the block was sealed, -1 when it is not known
+    private long logPosition = -1;
+    // Payer and receiver account numbers of each Transaction, recorded when the block is sealed
+    private int[] transactionAccounts;
+    // Read-only balances shared by readers once the block is committed
+    private volatile BalanceSnapshot balanceSnapshot;
 
     /**
      * Block Constructor
@@ -27,8 +43,57 @@ public class Block {
      * @param previousHash
      */
     public Block(int blockNumber, String previousHash) {
+        this(blockNumber, previousHash, new AccountDirectory());
+    }
+
+    /**
+     * Block Constructor for the first block of a ledger, whose accounts are numbered by
+     * the given directory
+     * @param blockNumber
+     * @param previousHash
+     * @param directory
+     */
+    Block(int blockNumber, String previousHash, AccountDirectory directory) {
         this.blockNumber = blockNumber;
         this.previousHash = previousHash;
+        this.accountBalanceMap = new AccountState(directory);
+    }
+
+    /**
+     * Block Constructor sharing the accounts of the previous block. Balances are
+     * copied only when they are first changed through this block.
+     * @param blockNumber
+     * @param previousBlock
+     */
+    public Block(int blockNumber, Block previousBlock) {
+        this.blockNumber = blockNumber;
+        this.previousHash = previousBlock.getHash();
+        this.previousBlock = previousBlock;
+        this.maxTransactions = previousBlock.maxTransactions;
+        this.accountBalanceMap = new AccountState(previousBlock.accountBalanceMap);
+    }
+
+    /**
+     * Block Constructor copying the header and Transactions of the given committed Block
+     * with the given account state, e.g. account state rebuilt after it was pruned
+     * @param block
+     * @param accounts
+     */
+    Block(Block block, AccountState accounts) {
+        this.blockNumber = block.blockNumber;
+        this.previousHash = block.previousHash;
+        this.hash = block.hash;
+        this.previousBlock = block.previousBlock;
+        this.leafFormat = block.leafFormat;
+        this.maxTransactions = block.maxTransactions;
+        this.sealedByAge = block.sealedByAge;
+        this.merkleLevels = block.merkleLevels;
+        this.accountCount = block.accountCount;
+        this.logPosition = block.logPosition;
+        this.transactionAccounts = block.transactionAccounts;
+        this.transactionList.addAll(block.transactionList);
+        this.accountBalanceMap = accounts;
+        this.balanceSnapshot = new BalanceSnapshot(block.blockNumber, accounts);
     }
 
     /**
@@ -81,10 +146,11 @@ public class Block {
 
     /**
      * Get a map of all the accounts in the system
-     * @return
+     * @return Map, or Null once the account state of the committed Block has been pruned
      */
     public Map<String, Account> getAccountBalanceMap() {
-        return accountBalanceMap;
+        AccountTable accounts = liveAccounts;
+        return accounts != null ? accounts : accountBalanceMap;
     }
 
     /**
@@ -101,7 +167,7 @@ public class Block {
      * @param account
      */
     public void addAccount(String address, Account account){
-        this.accountBalanceMap.put(address, account);
+        getAccountBalanceMap().put(address, account);
     }
 
     /**
@@ -110,7 +176,77 @@ public class Block {
      * @return
      */
     public Account getAccount(String address){
-        return this.accountBalanceMap.get(address);
+        Map<String, Account> accounts = getAccountBalanceMap();
+        return accounts == null ? null : accounts.get(address);
+    }
+
+    /**
+     * Check whether the Block's account state has been pruned. Ledger.getBlock returns
+     * a copy of a pruned Block with its account state rebuilt.
+     * @return
+     */
+    public boolean isAccountStatePruned() {
+        return liveAccounts == null && accountBalanceMap == null;
+    }
+
+    /**
+     * Drop the committed Block's account state, keeping the header and Transactions
+     */
+    void pruneAccounts() {
+        if (liveAccounts == null) {
+            accountBalanceMap = null;
+            balanceSnapshot = null;
+        }
+    }
+
+    /**
+     * Getter method for the committed account state
+     * @return AccountState, or Null once it has been pruned
+     */
+    AccountState getAccountState() {
+        return accountBalanceMap;
+    }
+
+    /**
+     * Helper Method for serving the Block's accounts from the live account table
+     * until the Block is committed
+     * @param accounts
+     */
+    void setLiveAccounts(AccountTable accounts){
+        this.liveAccounts = accounts;
+    }
+
+    /**
+     * Check whether the Account is backed by the Block's live account table
+     * @param account
+     * @return boolean
+     */
+    boolean isLiveAccount(Account account){
+        AccountTable accounts = liveAccounts;
+        return accounts != null && accounts.owns(account);
+    }
+
+    /**
+     * Helper Method for marking the Block's accounts as committed. Accounts changed
+     * in the live account table are copied into the Block's own account state.
+     */
+    void commitAccounts(){
+        AccountTable accounts = liveAccounts;
+        if (accounts != null) {
+            accounts.commitTo(this.accountBalanceMap);
+            liveAccounts = null;
+        }
+        this.accountBalanceMap.freeze();
+        this.balanceSnapshot = new BalanceSnapshot(blockNumber, accountBalanceMap);
+    }
+
+    /**
+     * Getter method for the balances the Block was committed with
+     * @return BalanceSnapshot, or Null before the Block is committed or once its account
+     * state has been pruned
+     */
+    public BalanceSnapshot getBalanceSnapshot() {
+        return balanceSnapshot;
     }
 
     /**
@@ -128,4 +264,136 @@ public class Block {
     public void setPreviousBlock(Block previousBlock) {
         this.previousBlock = previousBlock;
     }
+
+    /**
+     * Getter method for the Merkle leaf format the block was hashed with
+     * @return
+     */
+    public LeafFormat getLeafFormat() {
+        return leafFormat;
+    }
+
+    /**
+     * Setter method for the Merkle leaf format the block was hashed with
+     * @param leafFormat
+     */
+    public void setLeafFormat(LeafFormat leafFormat) {
+        this.leafFormat = leafFormat;
+    }
+
+    /**
+     * Getter method for the maximum number of transactions the block is sealed at
+     * @return
+     */
+    public int getMaxTransactions() {
+        return maxTransactions;
+    }
+
+    /**
+     * Setter method for the maximum number of transactions the block is sealed at
+     * @param maxTransactions
+     */
+    public void setMaxTransactions(int maxTransactions) {
+        this.maxTransactions = maxTransactions;
+    }
+
+    /**
+     * Check whether the block was sealed before filling up because it reached the max age
+     * @return
+     */
+    public boolean isSealedByAge() {
+        return sealedByAge;
+    }
+
+    /**
+     * Setter method for marking the block as sealed by the max age timer
+     * @param sealedByAge
+     */
+    public void setSealedByAge(boolean sealedByAge) {
+        this.sealedByAge = sealedByAge;
+    }
+
+    /**
+     * Getter method for the Merkle levels kept when the block was sealed
+     * @return packed node digests per level above the leaves, or null when they were not kept
+     */
+    byte[][] getMerkleLevels() {
+        return merkleLevels;
+    }
+
+    /**
+     * Setter method for the Merkle levels kept when the block was sealed
+     * @param merkleLevels
+     */
+    void setMerkleLevels(byte[][] merkleLevels) {
+        this.merkleLevels = merkleLevels;
+    }
+
+    /**
+     * Getter method for the number of accounts in the ledger when the block was sealed
+     * @return
+     */
+    int getAccountCount() {
+        return accountCount;
+    }
+
+    /**
+     * Setter method for the number of accounts in the ledger when the block was sealed
+     * @param accountCount
+     */
+    void setAccountCount(int accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    /**
+     * Getter method for the length of the write-ahead log when the block was sealed
+     * @return log position of the first record after the block, or -1 when it is not known
+     */
+    long getLogPosition() {
+        return logPosition;
+    }
+
+    /**
+     * Setter method for the length of the write-ahead log when the block was sealed
+     * @param logPosition
+     */
+    void setLogPosition(long logPosition) {
+        this.logPosition = logPosition;
+    }
+
+    /**
+     * Setter method for the payer and receiver account numbers of the Transactions
+     * @param transactionAccounts payer and receiver number of Transaction n at 2n and 2n + 1
+     */
+    void setTransactionAccounts(int[] transactionAccounts) {
+        this.transactionAccounts = transactionAccounts;
+    }
+
+    /**
+     * Getter method for the account number of a Transaction's payer
+     * @param index
+     * @return account number, or -1 when it was not recorded
+     */
+    int getPayerId(int index) {
+        int[] accounts = transactionAccounts;
+        return accounts == null ? -1 : accounts[2 * index];
+    }
+
+    /**
+     * Getter method for the account number of a Transaction's receiver
+     * @param index
+     * @return account number, or -1 when it was not recorded
+     */
+    int getReceiverId(int index) {
+        int[] accounts = transactionAccounts;
+        return accounts == null ? -1 : accounts[2 * index + 1];
+    }
+
+    /**
+     * Check whether the block kept its Merkle levels when it was sealed
+     * @return
+     */
+    public boolean hasMerkleLevels() {
+        return merkleLevels != null;
+    }
 }
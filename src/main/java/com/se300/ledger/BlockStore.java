@@ -0,0 +1,391 @@
+package com.se300.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BlockStore class implementation keeping committed blocks in memory-mapped, append-only
+ * segment files. A segment is a fixed size file: block records grow up from the segment
+ * header while the offset index grows down from the footer at the end of the file, so the
+ * index of every segment is rebuilt from its footer on open without scanning the records.
+ * A record that no longer fits rolls over to a new segment.
+ *
+ * Segment layout: magic, first block number, records of [length][block], free space,
+ * index entries of [block number][offset] in reverse order, footer of [magic][count][data end].
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class BlockStore implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final long MIN_SEGMENT_SIZE = 4096;
+
+    private static final int MAGIC = 0x4c425331;
+    private static final int HEADER_LENGTH = 2 * Integer.BYTES;
+    private static final int FOOTER_LENGTH = 3 * Integer.BYTES;
+    private static final int COUNT_FROM_END = 2 * Integer.BYTES;
+    private static final int DATA_END_FROM_END = Integer.BYTES;
+    private static final int INDEX_ENTRY_LENGTH = 2 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".blk";
+
+    private final Path directory;
+    private final long segmentSize;
+
+    // Segments by first block number, guarded by this
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment activeSegment;
+    private int lastBlockNumber;
+
+    /**
+     * Open the store in the given directory, creating it if needed
+     * @param directory
+     * @param segmentSize size of new segment files in bytes
+     * @throws IOException
+     */
+    public BlockStore(Path directory, long segmentSize) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment Size Must Be Between " + MIN_SEGMENT_SIZE
+                    + " And " + Integer.MAX_VALUE + " Bytes");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            if (segment.count == 0 && !segments.isEmpty()) {
+                // Empty segment left by a roll over that never received its block
+                segment.buffer = null;
+                Files.delete(file);
+                continue;
+            }
+            segments.put(segment.firstBlockNumber, segment);
+            activeSegment = segment;
+        }
+        if (activeSegment != null) {
+            lastBlockNumber = activeSegment.firstBlockNumber + activeSegment.count - 1;
+        }
+    }
+
+    /**
+     * Getter method for the store directory
+     * @return
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Getter method for the size of new segment files
+     * @return
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Get number of segment files
+     * @return
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Get number of the last stored block
+     * @return block number, or 0 when the store is empty
+     */
+    public synchronized int getLastBlockNumber() {
+        return lastBlockNumber;
+    }
+
+    /**
+     * Check whether the store holds the given block
+     * @param blockNumber
+     * @return
+     */
+    public synchronized boolean contains(int blockNumber) {
+        return blockNumber >= 1 && blockNumber <= lastBlockNumber && locate(blockNumber) != null;
+    }
+
+    /**
+     * Append a committed block. Blocks must arrive in block order; a block that is
+     * already stored is only checked against the stored hash.
+     * @param block
+     * @throws IOException if the block does not follow the stored chain
+     */
+    public synchronized void append(Block block) throws IOException {
+        int blockNumber = block.getBlockNumber();
+        if (blockNumber <= lastBlockNumber) {
+            Segment segment = locate(blockNumber);
+            if (segment == null || !block.getHash().equals(readHash(segment, blockNumber))) {
+                throw new IOException("Block Store Does Not Match Chain: " + blockNumber);
+            }
+            return;
+        }
+        if (blockNumber != lastBlockNumber + 1) {
+            throw new IOException("Block Store Is Missing Block: " + (lastBlockNumber + 1));
+        }
+
+        int length = recordLength(block);
+        int needed = Integer.BYTES + length + INDEX_ENTRY_LENGTH;
+        if (activeSegment == null || activeSegment.free() < needed) {
+            rollOver(blockNumber, needed);
+        }
+
+        Segment segment = activeSegment;
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = segment.dataEnd;
+        buffer.position(offset);
+        buffer.putInt(length);
+        writeRecord(block, buffer);
+
+        // Publish the index entry before the footer count that makes it visible
+        int indexPosition = segment.capacity - FOOTER_LENGTH - (segment.count + 1) * INDEX_ENTRY_LENGTH;
+        buffer.putInt(indexPosition, blockNumber);
+        buffer.putInt(indexPosition + Integer.BYTES, offset);
+        segment.dataEnd = buffer.position();
+        buffer.putInt(segment.capacity - DATA_END_FROM_END, segment.dataEnd);
+        segment.addOffset(offset);
+        buffer.putInt(segment.capacity - COUNT_FROM_END, segment.count);
+
+        lastBlockNumber = blockNumber;
+    }
+
+    /**
+     * Read a stored block. The record is decoded straight from the mapped segment;
+     * transaction accounts carry only their addresses and the block holds no account balances.
+     * @param blockNumber
+     * @return Block or Null
+     */
+    public Block readBlock(int blockNumber) {
+        ByteBuffer record;
+        synchronized (this) {
+            Segment segment = blockNumber >= 1 && blockNumber <= lastBlockNumber ? locate(blockNumber) : null;
+            if (segment == null) {
+                return null;
+            }
+            record = segment.record(blockNumber);
+        }
+
+        int number = record.getInt();
+        int maxTransactions = record.getInt();
+        boolean sealedByAge = record.get() == 1;
+        LeafFormat leafFormat = LeafFormat.fromVersion(record.get());
+        String previousHash = TransactionCodec.getString(record);
+        String hash = TransactionCodec.getString(record);
+        int transactionCount = record.getInt();
+
+        Block block = new Block(number, previousHash);
+        block.setHash(hash);
+        block.setMaxTransactions(maxTransactions);
+        block.setSealedByAge(sealedByAge);
+        block.setLeafFormat(leafFormat);
+        for (int i = 0; i < transactionCount; i++) {
+            block.getTransactionList().add(TransactionCodec.decode(record));
+        }
+        return block;
+    }
+
+    /**
+     * Remove every stored block
+     * @throws IOException
+     */
+    public synchronized void clear() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.buffer = null;
+            Files.deleteIfExists(segment.file);
+        }
+        segments.clear();
+        activeSegment = null;
+        lastBlockNumber = 0;
+    }
+
+    /**
+     * Flush mapped segments to disk and release them
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            if (segment.buffer != null) {
+                segment.buffer.force();
+                segment.buffer = null;
+            }
+        }
+        segments.clear();
+        activeSegment = null;
+    }
+
+    private Segment locate(int blockNumber) {
+        Map.Entry<Integer, Segment> entry = segments.floorEntry(blockNumber);
+        if (entry == null || blockNumber >= entry.getKey() + entry.getValue().count) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    private static String readHash(Segment segment, int blockNumber) {
+        ByteBuffer record = segment.record(blockNumber);
+        record.position(record.position() + 2 * Integer.BYTES + 2);
+        TransactionCodec.getString(record);
+        return TransactionCodec.getString(record);
+    }
+
+    /**
+     * Start a new segment for the given block, sized to hold at least the given record
+     */
+    private void rollOver(int firstBlockNumber, int needed) throws IOException {
+        if (activeSegment != null && activeSegment.count == 0) {
+            // Record is larger than an empty segment; replace it with a bigger one
+            segments.remove(activeSegment.firstBlockNumber);
+            activeSegment.buffer = null;
+            Files.delete(activeSegment.file);
+        } else if (activeSegment != null) {
+            activeSegment.buffer.force();
+        }
+        long capacity = Math.max(segmentSize, (long) HEADER_LENGTH + needed + FOOTER_LENGTH);
+        Path file = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, firstBlockNumber, SEGMENT_SUFFIX));
+        Segment segment = Segment.create(file, firstBlockNumber, (int) capacity);
+        segments.put(firstBlockNumber, segment);
+        activeSegment = segment;
+    }
+
+    private static int recordLength(Block block) {
+        String previousHash = block.getPreviousHash() == null ? "" : block.getPreviousHash();
+        int length = 3 * Integer.BYTES + 2
+                + TransactionCodec.stringLength(previousHash)
+                + TransactionCodec.stringLength(block.getHash());
+        for (Transaction transaction : block.getTransactionList()) {
+            length += TransactionCodec.encodedLength(transaction);
+        }
+        return length;
+    }
+
+    private static void writeRecord(Block block, ByteBuffer buffer) {
+        buffer.putInt(block.getBlockNumber());
+        buffer.putInt(block.getMaxTransactions());
+        buffer.put((byte) (block.isSealedByAge() ? 1 : 0));
+        buffer.put((byte) block.getLeafFormat().getVersion());
+        TransactionCodec.putString(buffer, block.getPreviousHash() == null ? "" : block.getPreviousHash());
+        TransactionCodec.putString(buffer, block.getHash());
+        buffer.putInt(block.getTransactionList().size());
+        for (Transaction transaction : block.getTransactionList()) {
+            TransactionCodec.encode(transaction, buffer);
+        }
+    }
+
+    /**
+     * Mapped segment file and the offsets of its block records
+     */
+    private static final class Segment {
+
+        final Path file;
+        final int firstBlockNumber;
+        final int capacity;
+        MappedByteBuffer buffer;
+        int[] offsets;
+        int count;
+        int dataEnd;
+
+        private Segment(Path file, int firstBlockNumber, int capacity, MappedByteBuffer buffer) {
+            this.file = file;
+            this.firstBlockNumber = firstBlockNumber;
+            this.capacity = capacity;
+            this.buffer = buffer;
+            this.offsets = new int[16];
+        }
+
+        static Segment create(Path file, int firstBlockNumber, int capacity) throws IOException {
+            MappedByteBuffer buffer = map(file, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(Integer.BYTES, firstBlockNumber);
+            buffer.putInt(capacity - FOOTER_LENGTH, MAGIC);
+            buffer.putInt(capacity - COUNT_FROM_END, 0);
+            buffer.putInt(capacity - DATA_END_FROM_END, HEADER_LENGTH);
+
+            Segment segment = new Segment(file, firstBlockNumber, capacity, buffer);
+            segment.dataEnd = HEADER_LENGTH;
+            return segment;
+        }
+
+        /**
+         * Map an existing segment and rebuild its offsets from the index above the footer
+         */
+        static Segment open(Path file) throws IOException {
+            long size = Files.size(file);
+            if (size < MIN_SEGMENT_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid Segment Size: " + file);
+            }
+            int capacity = (int) size;
+            MappedByteBuffer buffer = map(file, capacity);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(capacity - FOOTER_LENGTH) != MAGIC) {
+                throw new IOException("Invalid Segment: " + file);
+            }
+
+            Segment segment = new Segment(file, buffer.getInt(Integer.BYTES), capacity, buffer);
+            int count = buffer.getInt(capacity - COUNT_FROM_END);
+            segment.dataEnd = buffer.getInt(capacity - DATA_END_FROM_END);
+            for (int i = 0; i < count; i++) {
+                int indexPosition = capacity - FOOTER_LENGTH - (i + 1) * INDEX_ENTRY_LENGTH;
+                if (buffer.getInt(indexPosition) != segment.firstBlockNumber + i) {
+                    throw new IOException("Invalid Segment Index: " + file);
+                }
+                segment.addOffset(buffer.getInt(indexPosition + Integer.BYTES));
+            }
+            return segment;
+        }
+
+        private static MappedByteBuffer map(Path file, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        int free() {
+            return capacity - FOOTER_LENGTH - count * INDEX_ENTRY_LENGTH - dataEnd;
+        }
+
+        void addOffset(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+
+        /**
+         * View of a block record that shares the mapped segment memory
+         */
+        ByteBuffer record(int blockNumber) {
+            int offset = offsets[blockNumber - firstBlockNumber];
+            ByteBuffer view = buffer.duplicate();
+            int length = view.getInt(offset);
+            view.position(offset + Integer.BYTES);
+            view.limit(offset + Integer.BYTES + length);
+            return view.slice();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.se300.ledger;
+
+/**
+ * Durability enumeration representing when write-ahead log records are forced to disk
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public enum Durability {
+
+    /**
+     * Every record is forced to disk before the submitting call returns
+     */
+    SYNC,
+
+    /**
+     * Submitters wait for a shared force that covers every record written before it
+     */
+    GROUP,
+
+    /**
+     * Records are forced to disk periodically in the background
+     */
+    ASYNC
+}
@@ -0,0 +1,149 @@
+package com.se300.ledger;
+
+import java.util.Arrays;
+
+/**
+ * HeapAccountTable class implementation keeping the live account state in Java arrays.
+ * An open-addressing index maps each address to its account number, and balances are
+ * stored in fixed-size pages by account number.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+final class HeapAccountTable extends AccountTable {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile Index index = new Index(INITIAL_CAPACITY);
+
+    // Pages are only ever added, so holders of an account number never see them move
+    private volatile String[][] addressPages = new String[0][];
+    private volatile long[][] balancePages = new long[0][];
+    private volatile int[][] epochPages = new int[0][];
+    private volatile int[][] dirtyPages = new int[0][];
+
+    @Override
+    int find(String address) {
+        return index.find(address);
+    }
+
+    @Override
+    void append(int id, String address, long balance) {
+        int page = id >>> PAGE_BITS;
+        if (page == balancePages.length) {
+            addPage();
+        }
+        addressPages[page][id & PAGE_MASK] = address;
+        balancePages[page][id & PAGE_MASK] = balance;
+
+        Index current = index;
+        if ((id + 1) * 2 > current.keys.length) {
+            current = current.resize(this, id);
+            index = current;
+        }
+        current.insert(address, id);
+    }
+
+    private void addPage() {
+        int pages = balancePages.length + 1;
+        String[][] addresses = Arrays.copyOf(addressPages, pages);
+        long[][] balances = Arrays.copyOf(balancePages, pages);
+        int[][] epochs = Arrays.copyOf(epochPages, pages);
+        int[][] dirty = Arrays.copyOf(dirtyPages, pages);
+        addresses[pages - 1] = new String[PAGE_SIZE];
+        balances[pages - 1] = new long[PAGE_SIZE];
+        epochs[pages - 1] = new int[PAGE_SIZE];
+        dirty[pages - 1] = new int[PAGE_SIZE];
+        addressPages = addresses;
+        epochPages = epochs;
+        dirtyPages = dirty;
+        balancePages = balances;
+    }
+
+    @Override
+    String getAddress(int id) {
+        return addressPages[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    @Override
+    long getBalance(int id) {
+        return balancePages[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    @Override
+    void storeBalance(int id, long balance) {
+        balancePages[id >>> PAGE_BITS][id & PAGE_MASK] = balance;
+    }
+
+    @Override
+    int getEpoch(int id) {
+        return epochPages[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    @Override
+    void setEpoch(int id, int epoch) {
+        epochPages[id >>> PAGE_BITS][id & PAGE_MASK] = epoch;
+    }
+
+    @Override
+    int getDirty(int position) {
+        return dirtyPages[position >>> PAGE_BITS][position & PAGE_MASK];
+    }
+
+    @Override
+    void setDirty(int position, int id) {
+        dirtyPages[position >>> PAGE_BITS][position & PAGE_MASK] = id;
+    }
+
+    /**
+     * Open-addressing index from address to account number with linear probing.
+     * Kept at most half full so that every probe ends at an empty slot.
+     */
+    private static final class Index {
+
+        final String[] keys;
+        final int[] ids;
+
+        Index(int capacity) {
+            this.keys = new String[capacity];
+            this.ids = new int[capacity];
+        }
+
+        int find(String address) {
+            String[] keys = this.keys;
+            int mask = keys.length - 1;
+            for (int slot = spread(address) & mask; ; slot = (slot + 1) & mask) {
+                String key = keys[slot];
+                if (key == null) {
+                    return -1;
+                }
+                if (key.equals(address)) {
+                    return ids[slot];
+                }
+            }
+        }
+
+        void insert(String address, int id) {
+            int mask = keys.length - 1;
+            int slot = spread(address) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            //Number before key: an optimistic reader seeing the key is validated anyway
+            ids[slot] = id;
+            keys[slot] = address;
+        }
+
+        Index resize(HeapAccountTable table, int count) {
+            Index resized = new Index(keys.length * 2);
+            for (int id = 0; id < count; id++) {
+                resized.insert(table.getAddress(id), id);
+            }
+            return resized;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.se300.ledger;
+
+/**
+ * LeafFormat enumeration representing how transactions are encoded as Merkle leaves
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public enum LeafFormat {
+
+    /**
+     * Transaction.toString() output, used by chains created before binary leaves
+     */
+    LEGACY_STRING(0),
+
+    /**
+     * Canonical binary encoding produced by TransactionCodec
+     */
+    BINARY_V1(1);
+
+    private final int version;
+
+    LeafFormat(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Getter method for the format version
+     * @return
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get leaf format by version
+     * @param version
+     * @return LeafFormat
+     */
+    public static LeafFormat fromVersion(int version) {
+        for (LeafFormat format : values()) {
+            if (format.version == version) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Leaf Format Version: " + version);
+    }
+}
@@ -1,7 +1,25 @@
 package com.se300.ledger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
-import static java.util.Map.*;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Ledger Class representing simple implementation of Blockchain
@@ -10,29 +28,93 @@ import static java.util.Map.*;
  * @version 1.0
  * @since   2025-09-25
  */
-public class Ledger {
+public class Ledger implements AutoCloseable {
     private String name;
     private String description;
     private String seed;
-    private static NavigableMap <Integer,Block> blockMap;
-    private static Block uncommittedBlock;
+    private MerkleEngine merkleEngine = new BinaryMerkleEngine();
+    private LeafFormat leafFormat = LeafFormat.LEGACY_STRING;
+    private volatile boolean asyncSealing;
+    private int maxTransactionsPerBlock = Block.DEFAULT_MAX_TRANSACTIONS;
+    private volatile Duration maxBlockAge;
+    private volatile boolean cacheMerkleLevels;
+    private volatile boolean offHeapAccounts;
+    private volatile int accountStateRetention;
+    private volatile int accountCheckpointInterval;
+    private volatile WriteAheadLog writeAheadLog;
+    private volatile BlockStore blockStore;
+    private volatile int heapBlockRetention;
+    private volatile SnapshotStore snapshotStore;
+    private volatile int snapshotInterval;
+    private NavigableMap <Integer,Block> blockMap;
+    private volatile Block uncommittedBlock;
+    private Map<String,Transaction> transactionIndex;
+    // Block number and index of every committed transaction, recorded when its block is sealed
+    private Map<String,Long> transactionPositions;
+    // Live balances of the block being built, carried over from block to block
+    private AccountTable liveAccounts;
+    // Resolves the addresses of the committed blocks' account state through the live table
+    private AccountDirectory accountDirectory;
+    // Balance of each account after every block that changed it, by account number
+    private BalanceHistory balanceHistory;
+    // Positions of the committed transactions each account paid or received, by account number
+    private AccountTransactionIndex accountTransactions;
 
+    // Chain prefix restored from a snapshot: blocks up to the number are trusted, not revalidated
+    private int checkpointBlockNumber;
+    private long checkpointFees;
+    // Ids of the transactions committed before the restored snapshot, never changed once set
+    private Set<String> checkpointTransactionIds = Set.of();
+    // Ids committed since the last snapshot was handed to the writer, null while snapshots
+    // are disabled. Guarded by the write lock.
+    private List<String> snapshotTransactionIds;
+
+    // Highest block validated so far with the hash and fee total up to it, guarded by validationLock
+    private final Object validationLock = new Object();
+    private int validatedBlockNumber;
+    private String validatedHash;
+    private long validatedFees;
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Transfers hold the read lock and their account stripes, sealing holds the write lock
+    private final ReentrantReadWriteLock sealLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] accountLocks = new ReentrantLock[LOCK_STRIPES];
+    // Guards the uncommitted block's transaction list and the slots reserved in it
+    private final Object appendLock = new Object();
+    private int reservedSlots;
+
+    // Background sealer hashing and committing full blocks strictly in block order.
+    // Started on first use, so ledgers that seal on the caller's thread start no threads.
+    private ExecutorService sealer;
+    private volatile RuntimeException sealingFailure;
+
+    // Timer sealing partial blocks that have waited longer than the max block age,
+    // started once a max block age is in effect
+    private ScheduledExecutorService sealTimer;
+
+    // Guards starting and stopping the sealer and the timer
+    private final Object executorLock = new Object();
+    private boolean executorsStopped;
+
+    // Ledger returned by getInstance
     private static Ledger ledger;
 
-    // Initialize genesis block and the account list
-    static {
-        blockMap = new TreeMap<>();
-        uncommittedBlock = new Block(1, "");
-        uncommittedBlock.addAccount("master", new Account("master", Integer.MAX_VALUE));
-    }
+    // Named ledgers created through create, each with its own chain and locks
+    private static final Map<String,Ledger> registry = new ConcurrentHashMap<>();
+    private String registeredName;
 
     /**
-     * Create singleton of the Ledger
+     * Create singleton of the Ledger. Once the singleton exists the arguments are ignored
+     * and the existing Ledger is returned, whatever name and seed it was created with.
      * @param name
      * @param description
      * @param seed
      * @return
+     * @deprecated use create, which registers a Ledger under its own name and rejects a
+     * name that is already taken
      */
+    @Deprecated
     public static synchronized Ledger getInstance(String name, String description, String seed) {
         if (ledger == null) {
             ledger = new Ledger(name, description, seed);
@@ -41,15 +123,69 @@ public class Ledger {
     }
 
     /**
-     * Private Ledger Constructor
+     * Create a named Ledger independent of the singleton and of every other Ledger.
+     * Ledgers do not share chain state or locks, so they process transactions in parallel.
+     * @param name
+     * @param description
+     * @param seed
+     * @return Ledger registered under the name
+     * @throws LedgerException if a Ledger with the name is already registered
+     */
+    public static Ledger create(String name, String description, String seed) throws LedgerException {
+        if (name == null) {
+            throw new LedgerException("Create Ledger", "Ledger Name Is Required");
+        }
+        Ledger created = new Ledger(name, description, seed);
+        if (registry.putIfAbsent(name, created) != null) {
+            created.shutdown();
+            throw new LedgerException("Create Ledger", "Ledger Already Exists");
+        }
+        created.registeredName = name;
+        return created;
+    }
+
+    /**
+     * Get a Ledger created through create by the name it was registered under
+     * @param name
+     * @return Ledger or Null
+     */
+    public static Ledger getLedger(String name) {
+        return name == null ? null : registry.get(name);
+    }
+
+    /**
+     * Get names of the registered Ledgers
+     * @return Set of names
+     */
+    public static Set<String> getLedgerNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(registry.keySet()));
+    }
+
+    /**
+     * Ledger Constructor. Initializes the genesis block and the account list.
+     * Outside getInstance and create it is only used for the shards of a ShardedLedger.
      * @param name
      * @param description
      * @param seed
      */
-    private Ledger(String name, String description, String seed) {
+    Ledger(String name, String description, String seed) {
         this.name = name;
         this.description = description;
         this.seed = seed;
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            accountLocks[i] = new ReentrantLock();
+        }
+        blockMap = new ConcurrentSkipListMap<>();
+        transactionIndex = new ConcurrentHashMap<>();
+        transactionPositions = new ConcurrentHashMap<>();
+        liveAccounts = newAccountTable();
+        accountDirectory = new AccountDirectory(liveAccounts);
+        balanceHistory = new BalanceHistory();
+        accountTransactions = new AccountTransactionIndex();
+        uncommittedBlock = new Block(1, "", accountDirectory);
+        uncommittedBlock.setLiveAccounts(liveAccounts);
+        uncommittedBlock.addAccount("master", new Account("master", Integer.MAX_VALUE));
     }
 
     /**
@@ -101,255 +237,2304 @@ public class Ledger {
     }
 
     /**
-     * Method for creating accounts in the blockchain
-     * @param address
-     * @return Account representing account in the Blockchain
+     * Getter Method for the Merkle engine used to hash blocks
+     * @return MerkleEngine
      */
-    public Account createAccount(String address) throws LedgerException {
-
-        if(uncommittedBlock.getAccount(address) != null){
-            throw new LedgerException("Create Account", "Account Already Exists");
-        }
-
-        Account account = new Account(address, 0);
-        uncommittedBlock.addAccount(address, account);
-        return account;
+    public MerkleEngine getMerkleEngine() {
+        return merkleEngine;
     }
 
     /**
-     * Method implementing core functionality of the Blockchain by handling given transaction
-     * @param transaction
-     * @return String representing transaction id
-     * @throws LedgerException
+     * Setter Method for the Merkle engine used to hash blocks
+     * @param merkleEngine
      */
-    public synchronized String processTransaction(Transaction transaction) throws LedgerException {
-
-        //Check for transaction specification conditions
-        if(transaction.getAmount() < 0 || transaction.getAmount() > Integer.MAX_VALUE ){
-            throw new LedgerException("Process Transaction", "Transaction Amount Is Out of Range");
-        } else if (transaction.getFee() < 10) {
-            throw new LedgerException("Process Transaction", "Transaction Fee Must Be Greater Than 10");
-        } else if (transaction.getNote().length() > 1024){
-            throw new LedgerException("Process Transaction", "Note Length Must Be Less Than 1024 Chars");
-        }
-
-        if(ledger.getTransaction(transaction.getTransactionId()) != null){
-            throw new LedgerException("Process Transaction", "Transaction Id Must Be Unique");
-        }
+    public void setMerkleEngine(MerkleEngine merkleEngine) {
+        this.merkleEngine = merkleEngine;
+    }
 
-        Account tempPayerAccount = transaction.getPayer();
-        Account tempReceiverAccount = transaction.getReceiver();
+    /**
+     * Getter Method for the Merkle leaf format used to hash new blocks
+     * @return LeafFormat
+     */
+    public LeafFormat getLeafFormat() {
+        return leafFormat;
+    }
 
-        if(transaction.getPayer().getBalance() < (transaction.getAmount() + transaction.getFee()))
-            throw new LedgerException("Process Transaction", "Payer Does Not Have Required Funds");
+    /**
+     * Setter Method for the Merkle leaf format used to hash new blocks
+     * @param leafFormat
+     */
+    public void setLeafFormat(LeafFormat leafFormat) {
+        this.leafFormat = leafFormat;
+    }
 
-        //Deduct balance of the payer
-        tempPayerAccount.setBalance(tempPayerAccount.getBalance()
-                - transaction.getAmount() - transaction.getFee());
-        //Increase balance of the receiver
-        tempReceiverAccount.setBalance(tempReceiverAccount.getBalance() + transaction.getAmount());
+    /**
+     * Check whether full blocks are sealed by the background sealer
+     * @return boolean
+     */
+    public boolean isAsyncSealing() {
+        return asyncSealing;
+    }
 
-        uncommittedBlock.getTransactionList().add(transaction);
+    /**
+     * Setter Method for sealing full blocks on a background thread. When enabled the
+     * submitting thread only starts the next block; hashing and the commit to the
+     * block map happen on the sealer in block order.
+     * @param asyncSealing
+     */
+    public void setAsyncSealing(boolean asyncSealing) {
+        this.asyncSealing = asyncSealing;
+    }
 
-        //Check to see if account blocked has reached max size
-        if (uncommittedBlock.getTransactionList().size() == 10){
+    /**
+     * Getter Method for the maximum number of transactions per block
+     * @return int
+     */
+    public int getMaxTransactionsPerBlock() {
+        return maxTransactionsPerBlock;
+    }
 
-            List<String> tempTxList = new ArrayList<>();
-            tempTxList.add(seed);
+    /**
+     * Setter Method for the maximum number of transactions per block. The new size also
+     * applies to the block currently being built, which is sealed right away at its
+     * current size if it already holds at least the new maximum.
+     * @param maxTransactionsPerBlock
+     */
+    public void setMaxTransactionsPerBlock(int maxTransactionsPerBlock) {
+        if (maxTransactionsPerBlock < 1) {
+            throw new IllegalArgumentException("Max Transactions Per Block Must Be Positive");
+        }
 
-            //Loop through the list of transaction to get the hash
-            for( Transaction tempTx : uncommittedBlock.getTransactionList()){
-                tempTxList.add(tempTx.toString());
+        sealLock.writeLock().lock();
+        try {
+            this.maxTransactionsPerBlock = maxTransactionsPerBlock;
+            uncommittedBlock.setMaxTransactions(Math.max(maxTransactionsPerBlock,
+                    uncommittedBlock.getTransactionList().size()));
+            if (uncommittedBlock.getTransactionList().size() >= maxTransactionsPerBlock) {
+                sealBlock();
             }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
 
-            MerkleTrees merkleTrees = new MerkleTrees(tempTxList);
-            merkleTrees.merkle_tree();
-            uncommittedBlock.setHash(merkleTrees.getRoot());
+    /**
+     * Getter Method for the max age of a partially filled block
+     * @return Duration or Null when partial blocks wait until they are full
+     */
+    public Duration getMaxBlockAge() {
+        return maxBlockAge;
+    }
 
-            //Commit uncommitted block
-            blockMap.put(uncommittedBlock.getBlockNumber(), uncommittedBlock);
+    /**
+     * Setter Method for the max age of a partially filled block. A block is sealed once
+     * this much time has passed since its first transaction, even if it is not full.
+     * Applies to blocks receiving their first transaction after the call.
+     * @param maxBlockAge duration, or Null to disable time-based sealing
+     */
+    public void setMaxBlockAge(Duration maxBlockAge) {
+        if (maxBlockAge != null && (maxBlockAge.isNegative() || maxBlockAge.isZero())) {
+            throw new IllegalArgumentException("Max Block Age Must Be Positive");
+        }
+        this.maxBlockAge = maxBlockAge;
+    }
 
-            //Get committed block
-            Block committedBlock = blockMap.lastEntry().getValue();
-            Map<String,Account> accountMap = committedBlock.getAccountBalanceMap();
+    /**
+     * Check whether sealed blocks keep their Merkle levels for inclusion proofs
+     * @return boolean
+     */
+    public boolean isCacheMerkleLevels() {
+        return cacheMerkleLevels;
+    }
 
-            //Get all the accounts
-            List<Account> accountList = new ArrayList<Account>(accountMap.values());
+    /**
+     * Setter Method for keeping the Merkle levels of blocks sealed after the call.
+     * Proofs for blocks without cached levels rebuild the tree of the block on request.
+     * @param cacheMerkleLevels
+     */
+    public void setCacheMerkleLevels(boolean cacheMerkleLevels) {
+        this.cacheMerkleLevels = cacheMerkleLevels;
+    }
 
-            //Create next block
-            uncommittedBlock = new Block(uncommittedBlock.getBlockNumber() + 1,
-                    committedBlock.getHash());
+    /**
+     * Check whether the live account state is kept in direct memory
+     * @return boolean
+     */
+    public boolean isOffHeapAccounts() {
+        return offHeapAccounts;
+    }
 
-            //Replicate accounts
-            for (Account account : accountList) {
-                Account tempAccount = (Account) account.clone();
-                uncommittedBlock.addAccount(tempAccount.getAddress(), tempAccount);
+    /**
+     * Setter Method for keeping the live account state in direct memory instead of on the
+     * heap. The live balances, the addresses and the address index then take no heap per
+     * account. The committed blocks' account state stays on the heap as primitive balances
+     * by account number, about eight bytes per account shared by the blocks, and the balance
+     * history and per-account transaction index keep a primitive array for each account that
+     * has changed. The accounts are moved right away; Accounts handed out before the call keep
+     * the old state and should be looked up again.
+     * @param offHeapAccounts
+     */
+    public void setOffHeapAccounts(boolean offHeapAccounts) {
+        sealLock.writeLock().lock();
+        try {
+            if (this.offHeapAccounts == offHeapAccounts) {
+                return;
             }
-
-            //Link to previous block
-            uncommittedBlock.setPreviousBlock(committedBlock);
+            this.offHeapAccounts = offHeapAccounts;
+            AccountTable accounts = newAccountTable();
+            accounts.load(liveAccounts);
+            liveAccounts = accounts;
+            accountDirectory.setTable(accounts);
+            uncommittedBlock.setLiveAccounts(accounts);
+        } finally {
+            sealLock.writeLock().unlock();
         }
-
-        return transaction.getTransactionId();
     }
 
     /**
-     * Get Account balance by address
-     * @param address
-     * @return Integer representing balance of the Account
-     * @throws LedgerException
+     * Getter Method for the number of newest committed blocks keeping their account state
+     * @return int, zero when every block keeps its account state
      */
-    public Integer getAccountBalance(String address) throws LedgerException {
+    public int getAccountStateRetention() {
+        return accountStateRetention;
+    }
 
-        if(blockMap.isEmpty()){
-            throw new LedgerException("Get Account Balance", "Account Is Not Committed to a Block");
+    /**
+     * Setter Method for keeping the account state of only the newest committed blocks.
+     * Older blocks keep their header and Transactions; their account state is rebuilt by
+     * getBlock from the nearest earlier block that kept it. Blocks already committed are
+     * pruned right away.
+     * @param accountStateRetention number of blocks, or zero to keep every account state
+     */
+    public void setAccountStateRetention(int accountStateRetention) {
+        if (accountStateRetention < 0) {
+            throw new IllegalArgumentException("Account State Retention Must Not Be Negative");
         }
 
-        Block block = blockMap.lastEntry().getValue();
-        Account account = block.getAccount(address);
+        sealLock.writeLock().lock();
+        try {
+            this.accountStateRetention = accountStateRetention;
+            if (accountStateRetention > 0 && !blockMap.isEmpty()) {
+                for (Block block : blockMap.headMap(blockMap.lastKey() - accountStateRetention, true).values()) {
+                    pruneAccountState(block);
+                }
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
 
-        if (account == null)
-            throw new LedgerException("Get Account Balance", "Account Does Not Exist");
-        else
-            return account.getBalance();
+    /**
+     * Getter Method for the number of newest committed blocks kept on the heap
+     * @return int, zero when every block is kept on the heap
+     */
+    public int getHeapBlockRetention() {
+        return heapBlockRetention;
     }
 
     /**
-     * Get all Account balances that are part of the Blockchain
-     * @return Map representing Accounts and balances
+     * Setter Method for keeping only the newest committed blocks on the heap while a block
+     * store is attached. Older blocks leave the block map once the store holds them and are
+     * read back from the store when asked for. Blocks already committed are evicted right away.
+     * @param heapBlockRetention number of blocks, or zero to keep every block on the heap
      */
-    public Map<String,Integer> getAccountBalances(){
+    public void setHeapBlockRetention(int heapBlockRetention) {
+        if (heapBlockRetention < 0) {
+            throw new IllegalArgumentException("Heap Block Retention Must Not Be Negative");
+        }
 
-        if(blockMap.isEmpty())
-            return null;
+        sealLock.writeLock().lock();
+        try {
+            this.heapBlockRetention = heapBlockRetention;
+            BlockStore store = blockStore;
+            if (store != null && heapBlockRetention > 0 && !blockMap.isEmpty()) {
+                evictBlocks(blockMap.lastKey() - heapBlockRetention, store);
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
 
-        Block committedBlock = blockMap.lastEntry().getValue();
-        Map<String,Account> accountMap = committedBlock.getAccountBalanceMap();
+    /**
+     * Drop the blocks up to the given number that the store holds from the block map, and the
+     * link to each from the block after it, so that they can be collected
+     * @param lastBlockNumber
+     * @param store
+     */
+    private void evictBlocks(int lastBlockNumber, BlockStore store) {
+        for (Block block : blockMap.headMap(lastBlockNumber, true).values()) {
+            if (store.contains(block.getBlockNumber())) {
+                blockMap.remove(block.getBlockNumber());
+                Block nextBlock = blockMap.get(block.getBlockNumber() + 1);
+                if (nextBlock != null) {
+                    nextBlock.setPreviousBlock(null);
+                }
+            }
+        }
+    }
 
-        Map<String, Integer> balances = new HashMap<>();
-        List<Account> accountList = new ArrayList<>(accountMap.values());
+    /**
+     * Getter Method for the interval of blocks keeping their account state past the retention
+     * @return int, zero when no block is kept as a checkpoint
+     */
+    public int getAccountCheckpointInterval() {
+        return accountCheckpointInterval;
+    }
 
-        for (Account account : accountList) {
-            balances.put(account.getAddress(), account.getBalance());
+    /**
+     * Setter Method for keeping the account state of every block whose number is a multiple
+     * of the interval, bounding the blocks replayed when a pruned account state is rebuilt.
+     * Applies to blocks that have not been pruned yet.
+     * @param accountCheckpointInterval number of blocks, or zero for no checkpoints
+     */
+    public void setAccountCheckpointInterval(int accountCheckpointInterval) {
+        if (accountCheckpointInterval < 0) {
+            throw new IllegalArgumentException("Account Checkpoint Interval Must Not Be Negative");
         }
-
-        return balances;
+        this.accountCheckpointInterval = accountCheckpointInterval;
     }
 
     /**
-     * Get Block by id
-     * @param blockNumber
-     * @return Block or Null
+     * Drop the account state of the committed block unless it is a checkpoint.
+     * The block restored from a snapshot is always kept, since no earlier state is held.
+     * @param block
      */
-    public Block getBlock (Integer blockNumber) throws LedgerException {
-        Block block = blockMap.get(blockNumber);
-        if(block == null){
-            throw new LedgerException("Get Block", "Block Does Not Exist");
+    private void pruneAccountState(Block block) {
+        int interval = accountCheckpointInterval;
+        if (block.getBlockNumber() == checkpointBlockNumber
+                || (interval > 0 && block.getBlockNumber() % interval == 0)) {
+            return;
         }
-        return block;
+        block.pruneAccounts();
+    }
+
+    private AccountTable newAccountTable() {
+        return offHeapAccounts ? new OffHeapAccountTable() : new HeapAccountTable();
     }
 
     /**
-     * Get Transaction by id
-     * @param transactionId
-     * @return Transaction or Null
+     * Method for creating accounts in the blockchain
+     * @param address
+     * @return Account representing account in the Blockchain
      */
-    public Transaction getTransaction (String transactionId){
+    public Account createAccount(String address) throws LedgerException {
 
-        for ( Entry mapElement : blockMap.entrySet()) {
+        Account account;
 
-            // Finding specific transactions in the committed blocks
-            Block tempBlock = (Block) mapElement.getValue();
-            for (Transaction transaction : tempBlock.getTransactionList()){
-                if(transaction.getTransactionId().equals(transactionId)){
-                    return transaction;
+        //Hold off sealing so the account lands in the block that is being built
+        sealLock.readLock().lock();
+        try {
+            synchronized (appendLock) {
+                Map<String,Account> accountMap = uncommittedBlock.getAccountBalanceMap();
+                if(accountMap.containsKey(address)){
+                    throw new LedgerException("Create Account", "Account Already Exists");
                 }
+                WriteAheadLog log = writeAheadLog;
+                if (log != null) {
+                    try {
+                        log.appendAccount(address);
+                    } catch (IOException e) {
+                        throw new LedgerException("Create Account", "Account Could Not Be Logged");
+                    }
+                }
+                accountMap.put(address, new Account(address, 0));
+                //The live account table keeps the balance only; hand out the Account it backs
+                account = accountMap.get(address);
             }
+        } finally {
+            sealLock.readLock().unlock();
         }
-        // Finding specific transactions in the uncommitted block
-        for (Transaction transaction : uncommittedBlock.getTransactionList()){
-            if(transaction.getTransactionId().equals(transactionId)){
-                return transaction;
-            }
-        }
-        return null;
+
+        syncLog("Create Account");
+        return account;
     }
 
     /**
-     * Get number of Blocks in the Blockchain
-     * @return int representing number of blocks committed to Blockchain
+     * Method implementing core functionality of the Blockchain by handling given transaction.
+     * Transfers touching different accounts run in parallel; only the append to the
+     * uncommitted block and block sealing are serialised.
+     * @param transaction
+     * @return String representing transaction id
+     * @throws LedgerException
      */
-    public int getNumberOfBlocks(){
-        return blockMap.size();
+    public String processTransaction(Transaction transaction) throws LedgerException {
+        checkTransaction(transaction);
+        return submitTransaction(transaction, false);
     }
 
     /**
-     * Method for validating Blockchain.
-     * Check each block for Hash consistency
-     * Check each block for Transaction count
-     * Check account balances against the total
+     * Apply one settlement leg of a cross-shard transfer. The leg moves the amount from the
+     * shard's bridge account to a user account without a fee, since the fee is paid once by
+     * the debit leg. The bridge is a clearing account, so the leg may take its balance below
+     * zero; the bridge balances of all shards net to zero once the transfer has settled.
+     * @param transaction
+     * @return String representing transaction id
+     * @throws LedgerException
      */
-    public void validate() throws LedgerException {
+    String processBridgeTransaction(Transaction transaction) throws LedgerException {
+        if(transaction.getAmount() < 0 || transaction.getFee() != 0){
+            throw new LedgerException("Process Transaction", "Bridge Transaction Is Out of Range");
+        }
+        return submitTransaction(transaction, true);
+    }
 
-        if(blockMap.isEmpty()){
-            throw new LedgerException("Validate", "No Block Has Been Committed");
+    /**
+     * Apply a checked transaction and seal the uncommitted block if it is full
+     * @param transaction
+     * @param clearing true if the payer may be left with a negative balance
+     * @return String representing transaction id
+     * @throws LedgerException
+     */
+    private String submitTransaction(Transaction transaction, boolean clearing) throws LedgerException {
+
+        //Reserve the id so that concurrent submissions of the same id cannot both succeed
+        if(checkpointTransactionIds.contains(transaction.getTransactionId())
+                || transactionIndex.putIfAbsent(transaction.getTransactionId(), transaction) != null){
+            throw new LedgerException("Process Transaction", "Transaction Id Must Be Unique");
         }
 
-        Block committedBlock = blockMap.lastEntry().getValue();
-        Map<String,Account> accountMap = committedBlock.getAccountBalanceMap();
-        List<Account> accountList = new ArrayList<>(accountMap.values());
+        boolean blockFull;
+        try {
+            blockFull = applyTransaction(transaction, clearing);
+        } catch (LedgerException e) {
+            transactionIndex.remove(transaction.getTransactionId());
+            throw e;
+        }
 
-        int totalBalance = 0;
-        for (Account account : accountList) {
-            totalBalance += account.getBalance();
+        //Check to see if account blocked has reached max size
+        if (blockFull){
+            sealFullBlock();
         }
 
-        int fees = 0;
-        String hash;
-        for(Integer key : blockMap.keySet()){
-            Block block = blockMap.get(key);
+        //Wait for a group commit covering the transaction
+        syncLog("Process Transaction");
 
-            //Check for Hash Consistency
-            if(block.getBlockNumber() != 1)
-                if(!block.getPreviousHash().equals(block.getPreviousBlock().getHash())){
-                    throw new LedgerException("Validate", "Hash Is Inconsistent: "
-                            + block.getBlockNumber());
-            }
+        return transaction.getTransactionId();
+    }
 
-            //Check for Transaction Count
-            if(block.getTransactionList().size() != 10){
-                throw new LedgerException("Validate", "Transaction Count Is Not 10 In Block: "
-                        + block.getBlockNumber());
+    /**
+     * Check transaction specification conditions
+     * @param transaction
+     * @throws LedgerException
+     */
+    private void checkTransaction(Transaction transaction) throws LedgerException {
+        if(transaction.getAmount() < 0 || transaction.getAmount() > Integer.MAX_VALUE ){
+            throw new LedgerException("Process Transaction", "Transaction Amount Is Out of Range");
+        } else if (transaction.getFee() < 10) {
+            throw new LedgerException("Process Transaction", "Transaction Fee Must Be Greater Than 10");
+        } else if (transaction.getNote().length() > 1024){
+            throw new LedgerException("Process Transaction", "Note Length Must Be Less Than 1024 Chars");
+        }
+    }
+
+    /**
+     * Move funds between the payer and receiver and append the transaction to the
+     * uncommitted block. Waits for the block to be sealed when it has no free slot.
+     * @param transaction
+     * @param clearing
+     * @return true if the transaction filled the uncommitted block
+     * @throws LedgerException
+     */
+    private boolean applyTransaction(Transaction transaction, boolean clearing) throws LedgerException {
+
+        while (true) {
+            sealLock.readLock().lock();
+            try {
+                Block block = uncommittedBlock;
+                if (reserveSlot(block)) {
+                    return transfer(block, transaction, clearing);
+                }
+            } finally {
+                sealLock.readLock().unlock();
             }
+            sealFullBlock();
+        }
+    }
 
-            for(Transaction transaction : block.getTransactionList()){
-                fees += transaction.getFee();
+    /**
+     * Reserve a place in the given block's transaction list
+     * @param block
+     * @return false if the block is already full
+     */
+    private boolean reserveSlot(Block block) {
+        synchronized (appendLock) {
+            if (block.getTransactionList().size() + reservedSlots >= block.getMaxTransactions()) {
+                return false;
             }
+            reservedSlots++;
+            return true;
         }
+    }
 
-        int adjustedBalance = totalBalance + fees;
+    /**
+     * Apply the transaction to the given block under the payer and receiver locks.
+     * Locks are always taken in stripe order so that opposing transfers cannot deadlock.
+     * @param block
+     * @param transaction
+     * @param clearing
+     * @return true if the transaction filled the block
+     * @throws LedgerException
+     */
+    private boolean transfer(Block block, Transaction transaction, boolean clearing) throws LedgerException {
 
-        //Check for account balances against the total
-        if(adjustedBalance != Integer.MAX_VALUE){
-            throw new LedgerException("Validate", "Balance Does Not Add Up");
+        //Resolve the accounts first so that both are striped by account number
+        Account payer = getWorkingAccount(block, transaction.getPayer());
+        Account receiver = getWorkingAccount(block, transaction.getReceiver());
+        int payerStripe = stripe(payer);
+        int receiverStripe = stripe(receiver);
+        ReentrantLock first = accountLocks[Math.min(payerStripe, receiverStripe)];
+        ReentrantLock second = accountLocks[Math.max(payerStripe, receiverStripe)];
+
+        boolean appended = false;
+        first.lock();
+        second.lock();
+        try {
+            moveFunds(payer, receiver, transaction, clearing);
+
+            synchronized (appendLock) {
+                logTransaction(block, transaction);
+                block.getTransactionList().add(transaction);
+                reservedSlots--;
+                appended = true;
+                if (block.getTransactionList().size() == 1) {
+                    scheduleAgeSeal(block);
+                }
+                return block.getTransactionList().size() == block.getMaxTransactions();
+            }
+        } finally {
+            if (!appended) {
+                synchronized (appendLock) {
+                    reservedSlots--;
+                }
+            }
+            second.unlock();
+            first.unlock();
         }
+    }
 
+    /**
+     * Deduct amount and fee from the payer and credit the receiver. Caller holds both account locks.
+     * @param block
+     * @param transaction
+     * @param clearing
+     * @throws LedgerException
+     */
+    private void moveFunds(Block block, Transaction transaction, boolean clearing) throws LedgerException {
+        moveFunds(getWorkingAccount(block, transaction.getPayer()),
+                getWorkingAccount(block, transaction.getReceiver()), transaction, clearing);
     }
 
     /**
-     * Helper method for CommandProcessor
-     * @return current block we are working with
+     * Deduct amount and fee from the resolved payer and credit the resolved receiver.
+     * Caller holds both account locks.
+     * @param tempPayerAccount
+     * @param tempReceiverAccount
+     * @param transaction
+     * @param clearing true if the payer may be left with a negative balance
+     * @throws LedgerException
      */
-    public Block getUncommittedBlock(){
-        return uncommittedBlock;
+    private void moveFunds(Account tempPayerAccount, Account tempReceiverAccount,
+                           Transaction transaction, boolean clearing) throws LedgerException {
+
+        if(!clearing && tempPayerAccount.getLongBalance() < (long) transaction.getAmount() + transaction.getFee())
+            throw new LedgerException("Process Transaction", "Payer Does Not Have Required Funds");
+
+        //Deduct balance of the payer
+        tempPayerAccount.setBalance(tempPayerAccount.getLongBalance()
+                - transaction.getAmount() - transaction.getFee());
+        //Increase balance of the receiver
+        tempReceiverAccount.setBalance(tempReceiverAccount.getLongBalance() + transaction.getAmount());
     }
 
     /**
-     * Helper method allowing reset the state of the Ledger
+     * Append the transaction to the write-ahead log before it joins the block, so that the
+     * log holds transactions in block order. If the record cannot be written the funds moved
+     * for the transaction are returned. Caller holds both account locks and the append lock.
+     * @param block
+     * @param transaction
+     * @throws LedgerException
      */
-    public synchronized void reset(){
-        blockMap = new TreeMap<>();
-        uncommittedBlock = new Block(1, "");
+    private void logTransaction(Block block, Transaction transaction) throws LedgerException {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return;
+        }
+        try {
+            log.appendTransaction(transaction);
+        } catch (IOException e) {
+            Account tempPayerAccount = getWorkingAccount(block, transaction.getPayer());
+            Account tempReceiverAccount = getWorkingAccount(block, transaction.getReceiver());
+            tempReceiverAccount.setBalance(tempReceiverAccount.getLongBalance() - transaction.getAmount());
+            tempPayerAccount.setBalance(tempPayerAccount.getLongBalance()
+                    + transaction.getAmount() + transaction.getFee());
+            throw new LedgerException("Process Transaction", "Transaction Could Not Be Logged");
+        }
+    }
+
+    /**
+     * Wait until the write-ahead log holds every record written so far
+     * @param action
+     * @throws LedgerException
+     */
+    private void syncLog(String action) throws LedgerException {
+        WriteAheadLog log = writeAheadLog;
+        if (log == null) {
+            return;
+        }
+        try {
+            log.sync();
+        } catch (IOException e) {
+            throw new LedgerException(action, "Write-Ahead Log Sync Failed");
+        }
+    }
+
+    /**
+     * Process a batch of transactions under a single critical section, sealing as many
+     * blocks as the batch fills. Rejected transactions do not stop the batch.
+     * @param transactions
+     * @return List of results in submission order, holding the id or the rejection reason
+     * @throws LedgerException if the accepted transactions could not be synced to the log
+     */
+    public List<TransactionResult> processTransactions(List<Transaction> transactions) throws LedgerException {
+
+        List<TransactionResult> results = new ArrayList<>(transactions.size());
+
+        sealLock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions) {
+                try {
+                    checkTransaction(transaction);
+
+                    if(checkpointTransactionIds.contains(transaction.getTransactionId())
+                            || transactionIndex.putIfAbsent(transaction.getTransactionId(), transaction) != null){
+                        throw new LedgerException("Process Transaction", "Transaction Id Must Be Unique");
+                    }
+
+                    try {
+                        moveFunds(uncommittedBlock, transaction, false);
+                        logTransaction(uncommittedBlock, transaction);
+                    } catch (LedgerException e) {
+                        transactionIndex.remove(transaction.getTransactionId());
+                        throw e;
+                    }
+
+                    //No transfer can hold a slot while the write lock is held
+                    uncommittedBlock.getTransactionList().add(transaction);
+                    if (uncommittedBlock.getTransactionList().size() == 1) {
+                        scheduleAgeSeal(uncommittedBlock);
+                    }
+                    if (uncommittedBlock.getTransactionList().size() >= uncommittedBlock.getMaxTransactions()) {
+                        sealBlock();
+                    }
+
+                    results.add(new TransactionResult(transaction.getTransactionId(), null));
+                } catch (LedgerException e) {
+                    results.add(new TransactionResult(transaction.getTransactionId(), e.getReason()));
+                }
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+
+        //One group commit covers the whole batch
+        syncLog("Process Transaction");
+
+        return results;
+    }
+
+    /**
+     * Seal the uncommitted block if it has reached max size
+     */
+    private void sealFullBlock() {
+        sealLock.writeLock().lock();
+        try {
+            if (uncommittedBlock.getTransactionList().size() >= uncommittedBlock.getMaxTransactions()) {
+                sealBlock();
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Arrange for the given block to be sealed once it reaches the max block age.
+     * Called when the block receives its first transaction.
+     * @param block
+     */
+    private void scheduleAgeSeal(Block block) {
+        Duration maxAge = maxBlockAge;
+        if (maxAge == null) {
+            return;
+        }
+        sealTimer().schedule(() -> sealExpiredBlock(block), maxAge.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Seal the given block before it is full if it is still the uncommitted block
+     * @param block
+     */
+    private void sealExpiredBlock(Block block) {
+        sealLock.writeLock().lock();
+        try {
+            if (uncommittedBlock == block && !block.getTransactionList().isEmpty()) {
+                block.setSealedByAge(true);
+                sealBlock();
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start the next block and hand the full uncommitted block over for hashing and commit.
+     * Caller holds the write lock.
+     */
+    private void sealBlock() {
+
+        Block fullBlock = uncommittedBlock;
+        Block nextBlock = startNextBlock();
+
+        String blockSeed = seed;
+        LeafFormat blockLeafFormat = leafFormat;
+        MerkleEngine blockMerkleEngine = cacheMerkleLevels ? null : merkleEngine;
+        WriteAheadLog log = writeAheadLog;
+        BlockStore store = blockStore;
+
+        //Checkpoint every snapshot interval blocks once the block has its hash
+        SnapshotStore snapshots = snapshotStore;
+        boolean snapshotDue = snapshots != null && fullBlock.getBlockNumber() % snapshotInterval == 0;
+        int nextMaxTransactions = nextBlock.getMaxTransactions();
+        //The account state may be pruned before the snapshot is written
+        Map<String,Account> fullAccounts = fullBlock.getAccountBalanceMap();
+        List<String> fullTransactionIds = snapshotDue ? takeSnapshotTransactionIds() : null;
+
+        if (asyncSealing) {
+            sealer().execute(() -> {
+                try {
+                    commitBlock(fullBlock, nextBlock, blockSeed, blockLeafFormat, blockMerkleEngine, log, store);
+                } catch (RuntimeException e) {
+                    sealingFailure = e;
+                }
+                if (snapshotDue) {
+                    snapshots.writeAsync(() -> snapshotOf(fullBlock, fullAccounts, fullTransactionIds,
+                            nextMaxTransactions, List.of(), List.of()));
+                }
+            });
+        } else {
+            try {
+                commitBlock(fullBlock, nextBlock, blockSeed, blockLeafFormat, blockMerkleEngine, log, store);
+            } catch (UncheckedIOException e) {
+                //The block is committed in memory; the failed write is reported by awaitSealing
+                sealingFailure = e;
+            }
+            if (snapshotDue) {
+                snapshots.writeAsync(() -> snapshotOf(fullBlock, fullAccounts, fullTransactionIds,
+                        nextMaxTransactions, List.of(), List.of()));
+            }
+        }
+    }
+
+    /**
+     * Freeze the uncommitted block's accounts and replace it with the next block.
+     * Caller holds the write lock.
+     * @return the new uncommitted block
+     */
+    private Block startNextBlock() {
+
+        Block fullBlock = uncommittedBlock;
+        liveAccounts.recordChanges(balanceHistory, fullBlock.getBlockNumber());
+        indexTransactions(fullBlock);
+        //No record is appended while the write lock is held, so later records belong to later blocks
+        WriteAheadLog log = writeAheadLog;
+        if (log != null) {
+            try {
+                fullBlock.setLogPosition(log.size());
+            } catch (IOException e) {
+                // A snapshot of the block then replays the whole log
+            }
+        }
+        fullBlock.commitAccounts();
+        fullBlock.setAccountCount(liveAccounts.size());
+
+        //Create next block sharing the committed accounts
+        Block nextBlock = new Block(fullBlock.getBlockNumber() + 1, fullBlock);
+        nextBlock.setMaxTransactions(maxTransactionsPerBlock);
+        nextBlock.setLiveAccounts(liveAccounts);
+        uncommittedBlock = nextBlock;
+        return nextBlock;
+    }
+
+    /**
+     * Add the positions of the full block's Transactions to the per-account index and the
+     * position index by id, and record the payer and receiver account numbers with the block.
+     * Caller holds the write lock.
+     * @param block
+     */
+    private void indexTransactions(Block block) {
+        List<Transaction> transactions = block.getTransactionList();
+        int[] transactionAccounts = new int[2 * transactions.size()];
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            transactionPositions.put(transaction.getTransactionId(),
+                    AccountTransactionIndex.position(block.getBlockNumber(), i));
+            if (snapshotTransactionIds != null) {
+                snapshotTransactionIds.add(transaction.getTransactionId());
+            }
+            int payer = liveAccounts.idOf(transaction.getPayer());
+            int receiver = liveAccounts.idOf(transaction.getReceiver());
+            transactionAccounts[2 * i] = payer;
+            transactionAccounts[2 * i + 1] = receiver;
+            if (payer >= 0) {
+                accountTransactions.add(payer, block.getBlockNumber(), i);
+            }
+            if (receiver >= 0 && receiver != payer) {
+                accountTransactions.add(receiver, block.getBlockNumber(), i);
+            }
+        }
+        block.setTransactionAccounts(transactionAccounts);
+    }
+
+    /**
+     * Hash the full block, commit it to the block map, record its header in the log
+     * and append it to the block store. Without a Merkle engine the block keeps every
+     * level of its tree and the root is taken from them.
+     */
+    private void commitBlock(Block block, Block nextBlock, String seed, LeafFormat leafFormat,
+                             MerkleEngine merkleEngine, WriteAheadLog log, BlockStore store) {
+
+        block.setLeafFormat(leafFormat);
+        if (merkleEngine == null) {
+            byte[][] levels = BinaryMerkleEngine.computeLevels(seed, block.getTransactionList(), leafFormat);
+            block.setMerkleLevels(levels);
+            block.setHash(BinaryMerkleEngine.toHex(levels[levels.length - 1], 0));
+        } else {
+            block.setHash(merkleEngine.computeRoot(seed, block.getTransactionList(), leafFormat));
+        }
+        nextBlock.setPreviousHash(block.getHash());
+
+        //Commit uncommitted block
+        blockMap.put(block.getBlockNumber(), block);
+
+        //Blocks leave the retention window one at a time as the chain grows
+        int retention = accountStateRetention;
+        if (retention > 0) {
+            Block expired = blockMap.get(block.getBlockNumber() - retention);
+            if (expired != null) {
+                pruneAccountState(expired);
+            }
+        }
+
+        try {
+            if (log != null) {
+                log.appendBlock(block);
+            }
+            if (store != null) {
+                store.append(block);
+                int heapRetention = heapBlockRetention;
+                if (heapRetention > 0) {
+                    evictBlocks(block.getBlockNumber() - heapRetention, store);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wait until every block handed to the background sealer has been committed
+     * @throws LedgerException if the sealer failed to commit a block
+     */
+    public void awaitSealing() throws LedgerException {
+        ExecutorService executor;
+        synchronized (executorLock) {
+            executor = sealer;
+        }
+        try {
+            //A ledger whose sealer never started has no blocks in flight
+            if (executor != null && executor.isShutdown()) {
+                //A closed ledger's sealer finishes the blocks handed to it before terminating
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } else if (executor != null) {
+                executor.submit(() -> { }).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LedgerException("Seal Block", "Interrupted While Waiting For Sealing");
+        } catch (ExecutionException e) {
+            throw new LedgerException("Seal Block", "Block Sealing Failed");
+        }
+
+        RuntimeException failure = sealingFailure;
+        if (failure != null) {
+            sealingFailure = null;
+            throw new LedgerException("Seal Block", "Block Sealing Failed: " + failure.getMessage());
+        }
+    }
+
+    /**
+     * Pick the lock stripe of the account. Dense account numbers spread live accounts
+     * evenly over the stripes; accounts missing from the table fall back to the address hash.
+     * Caller holds the read lock, so the live account table is not replaced.
+     */
+    private int stripe(Account account) {
+        int id = liveAccounts.idOf(account);
+        if (id >= 0) {
+            return id & (LOCK_STRIPES - 1);
+        }
+        String address = account.getAddress();
+        int h = address == null ? 0 : address.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    /**
+     * Get the account number given to the address when its account was created. Numbers are
+     * dense and assigned in creation order; they are kept until the chain is reset or
+     * restored from a snapshot.
+     * @param address
+     * @return account number, or -1 if the account does not exist
+     */
+    public int getAccountId(String address) {
+        if (address == null) {
+            return -1;
+        }
+        sealLock.readLock().lock();
+        try {
+            return liveAccounts.indexOf(address);
+        } finally {
+            sealLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the address of the account with the given number
+     * @param accountId
+     * @return address, or Null if no account has the number
+     */
+    public String getAccountAddress(int accountId) {
+        sealLock.readLock().lock();
+        try {
+            return liveAccounts.addressOf(accountId);
+        } finally {
+            sealLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolve the given block's copy of the account so that committed
+     * blocks sharing the account keep their balances
+     * @param block
+     * @param account
+     * @return Account to apply the transaction to
+     */
+    private Account getWorkingAccount(Block block, Account account) {
+        if (block.isLiveAccount(account)) {
+            return account;
+        }
+        Account workingAccount = block.getAccount(account.getAddress());
+        return workingAccount != null ? workingAccount : account;
+    }
+
+    /**
+     * Get Account balance by address
+     * @param address
+     * @return Integer representing balance of the Account
+     * @throws LedgerException also if the balance is outside the int range
+     */
+    public Integer getAccountBalance(String address) throws LedgerException {
+        return toIntBalance(getLongAccountBalance(address));
+    }
+
+    /**
+     * Get the full Account balance by address
+     * @param address
+     * @return Long representing balance of the Account
+     * @throws LedgerException
+     */
+    public Long getLongAccountBalance(String address) throws LedgerException {
+
+        if(blockMap.isEmpty()){
+            throw new LedgerException("Get Account Balance", "Account Is Not Committed to a Block");
+        }
+
+        Block block = blockMap.lastEntry().getValue();
+        Account account = block.getAccount(address);
+
+        if (account == null)
+            throw new LedgerException("Get Account Balance", "Account Does Not Exist");
+        else
+            return account.getLongBalance();
+    }
+
+    /**
+     * Narrow a balance for the int accessors
+     * @param balance
+     * @return Integer holding the same balance
+     * @throws LedgerException if the balance is outside the int range
+     */
+    private static Integer toIntBalance(long balance) throws LedgerException {
+        if (balance < Integer.MIN_VALUE || balance > Integer.MAX_VALUE) {
+            throw new LedgerException("Get Account Balance", "Balance Is Out of Int Range, Use getLongAccountBalance");
+        }
+        return (int) balance;
+    }
+
+    /**
+     * Get Account balance by address as of the given committed Block
+     * @param address
+     * @param blockNumber
+     * @return Integer representing balance of the Account after the Block
+     * @throws LedgerException also if the balance is outside the int range
+     */
+    public Integer getAccountBalance(String address, int blockNumber) throws LedgerException {
+        return toIntBalance(getLongAccountBalance(address, blockNumber));
+    }
+
+    /**
+     * Get the full Account balance by address as of the given committed Block
+     * @param address
+     * @param blockNumber
+     * @return Long representing balance of the Account after the Block
+     * @throws LedgerException
+     */
+    public Long getLongAccountBalance(String address, int blockNumber) throws LedgerException {
+
+        if(blockMap.isEmpty() || blockNumber > blockMap.lastKey()){
+            throw new LedgerException("Get Account Balance", "Block Is Not Committed");
+        }
+        if(blockNumber < 1){
+            throw new LedgerException("Get Account Balance", "Block Does Not Exist");
+        }
+
+        Long balance;
+        sealLock.readLock().lock();
+        try {
+            if(blockNumber < checkpointBlockNumber){
+                throw new LedgerException("Get Account Balance", "Block Is Before Restored Snapshot");
+            }
+            int id = address == null ? -1 : liveAccounts.indexOf(address);
+            balance = balanceHistory.getBalance(id, blockNumber);
+        } finally {
+            sealLock.readLock().unlock();
+        }
+
+        //Accounts are recorded by the block they were created in
+        if (balance == null)
+            throw new LedgerException("Get Account Balance", "Account Does Not Exist");
+        else
+            return balance;
+    }
+
+    /**
+     * Get all Account balances that are part of the Blockchain. The map is a read-only view
+     * of the balances the last Block was committed with; it is shared by every caller and
+     * does not change as further Blocks are committed.
+     * @return Map representing Accounts and balances
+     */
+    public Map<String,Integer> getAccountBalances(){
+        return getBalanceSnapshot();
+    }
+
+    /**
+     * Get the balances the last Block was committed with
+     * @return BalanceSnapshot, or Null if no Block has been committed
+     */
+    public BalanceSnapshot getBalanceSnapshot(){
+
+        if(blockMap.isEmpty())
+            return null;
+
+        return blockMap.lastEntry().getValue().getBalanceSnapshot();
+    }
+
+    /**
+     * Get Block by id
+     * @param blockNumber
+     * @return Block or Null
+     */
+    public Block getBlock (Integer blockNumber) throws LedgerException {
+        Block block = blockMap.get(blockNumber);
+        if(block == null && blockNumber != null){
+            //Blocks no longer on the heap are read from the mapped segments
+            block = committedBlock(blockNumber);
+            if(block != null){
+                sealLock.readLock().lock();
+                try {
+                    return withHistoricalAccountState(block);
+                } finally {
+                    sealLock.readLock().unlock();
+                }
+            }
+        }
+        if(block == null){
+            throw new LedgerException("Get Block", "Block Does Not Exist");
+        }
+        if(block.isAccountStatePruned()){
+            block = rebuildAccountState(block);
+        }
+        return block;
+    }
+
+    /**
+     * Get a committed block from the heap, or from the block store once it was evicted.
+     * A block read from the store holds the Transactions kept in the transaction index,
+     * no account state and no link to the block before it.
+     * @param blockNumber
+     * @return Block or Null
+     */
+    private Block committedBlock(int blockNumber) {
+        Block block = blockMap.get(blockNumber);
+        BlockStore store = blockStore;
+        if (block == null && store != null) {
+            block = store.readBlock(blockNumber);
+            if (block != null) {
+                List<Transaction> transactions = block.getTransactionList();
+                for (int i = 0; i < transactions.size(); i++) {
+                    Transaction indexed = transactionIndex.get(transactions.get(i).getTransactionId());
+                    if (indexed != null) {
+                        transactions.set(i, indexed);
+                    }
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Copy the given block with the account state recorded for it in the balance history.
+     * Balances before a restored snapshot are not known. Caller holds the read lock.
+     * @param block
+     * @return copy of the block holding the account state
+     */
+    private Block withHistoricalAccountState(Block block) {
+        AccountState accounts = new AccountState(accountDirectory);
+        int accountCount = 0;
+        for (int id = 0; id < liveAccounts.size(); id++) {
+            Long balance = balanceHistory.getBalance(id, block.getBlockNumber());
+            if (balance != null) {
+                accounts.setBalance(id, balance);
+                accountCount = id + 1;
+            }
+        }
+        accounts.freeze();
+        Block copy = new Block(block, accounts);
+        copy.setAccountCount(accountCount);
+        return copy;
+    }
+
+    /**
+     * Rebuild the account state of a pruned block. Starting from the nearest earlier block
+     * that kept its account state, or from the genesis state, the accounts created and the
+     * Transactions applied in each following block are replayed up to the given block.
+     * @param block
+     * @return copy of the block holding the rebuilt account state
+     */
+    private Block rebuildAccountState(Block block) {
+
+        sealLock.readLock().lock();
+        try {
+            Block base = null;
+            for (Block candidate : blockMap.headMap(block.getBlockNumber(), false).descendingMap().values()) {
+                if (!candidate.isAccountStatePruned()) {
+                    base = candidate;
+                    break;
+                }
+            }
+
+            //Blocks to replay that are no longer on the heap leave the balance history to go by
+            int firstReplayed = base == null ? 1 : base.getBlockNumber() + 1;
+            if (blockMap.subMap(firstReplayed, true, block.getBlockNumber(), true).size()
+                    != block.getBlockNumber() - firstReplayed + 1) {
+                return withHistoricalAccountState(block);
+            }
+
+            AccountState accounts;
+            int accountCount;
+            int baseNumber;
+            if (base == null) {
+                //The genesis state holds the master account, which is always account number zero
+                accounts = new AccountState(accountDirectory);
+                accounts.setBalance(0, Integer.MAX_VALUE);
+                accountCount = 1;
+                baseNumber = 0;
+            } else {
+                accounts = new AccountState(base.getAccountState());
+                accountCount = base.getAccountCount();
+                baseNumber = base.getBlockNumber();
+            }
+
+            for (Block replayed : blockMap.subMap(baseNumber, false, block.getBlockNumber(), true).values()) {
+                //Account numbers are given in creation order, so they name the accounts each block added
+                for (int id = accountCount; id < replayed.getAccountCount(); id++) {
+                    if (!accounts.contains(id)) {
+                        accounts.setBalance(id, 0);
+                    }
+                }
+                accountCount = Math.max(accountCount, replayed.getAccountCount());
+
+                List<Transaction> transactions = replayed.getTransactionList();
+                for (int i = 0; i < transactions.size(); i++) {
+                    Transaction transaction = transactions.get(i);
+                    //Blocks sealed by the ledger name their accounts by number
+                    int payer = replayed.getPayerId(i);
+                    if (payer < 0) {
+                        payer = accounts.indexOf(transaction.getPayer().getAddress());
+                    }
+                    if (accounts.contains(payer)) {
+                        accounts.setBalance(payer,
+                                accounts.getLongBalance(payer) - transaction.getAmount() - transaction.getFee());
+                    }
+                    int receiver = replayed.getReceiverId(i);
+                    if (receiver < 0) {
+                        receiver = accounts.indexOf(transaction.getReceiver().getAddress());
+                    }
+                    if (accounts.contains(receiver)) {
+                        accounts.setBalance(receiver, accounts.getLongBalance(receiver) + transaction.getAmount());
+                    }
+                }
+            }
+            accounts.freeze();
+            return new Block(block, accounts);
+        } finally {
+            sealLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get Transaction by id
+     * @param transactionId
+     * @return Transaction or Null
+     */
+    public Transaction getTransaction (String transactionId){
+        if(transactionId == null){
+            return null;
+        }
+        // Index covers both the committed blocks and the uncommitted block
+        return transactionIndex.get(transactionId);
+    }
+
+    /**
+     * Get a live view of the Transactions the ledger has accepted since its last restored
+     * snapshot, committed or not, e.g. to find settlement legs that were never completed
+     * @return Collection of Transactions
+     */
+    Collection<Transaction> getIndexedTransactions(){
+        return Collections.unmodifiableCollection(transactionIndex.values());
+    }
+
+    /**
+     * Get a page of the committed Transactions the account paid or received, in chain order,
+     * starting at the given block. Transactions before a restored snapshot are not listed.
+     * @param address
+     * @param fromBlock
+     * @param limit
+     * @return TransactionPage holding the Transactions and the position the next page starts at
+     * @throws LedgerException
+     */
+    public TransactionPage getTransactionsForAccount(String address, int fromBlock, int limit)
+            throws LedgerException {
+        return getTransactionsForAccount(address, fromBlock, 0, limit);
+    }
+
+    /**
+     * Get a page of at most limit committed Transactions the account paid or received, in
+     * chain order, starting at the given index of the given block. Pass the next block and
+     * next index of the previous page to continue where it stopped. A page stops short of
+     * the limit at a block that is sealed but not yet committed, and names that block as the
+     * position to continue from.
+     * @param address
+     * @param fromBlock
+     * @param fromIndex
+     * @param limit
+     * @return TransactionPage holding the Transactions and the position the next page starts at
+     * @throws LedgerException
+     */
+    public TransactionPage getTransactionsForAccount(String address, int fromBlock, int fromIndex, int limit)
+            throws LedgerException {
+
+        if (limit < 1) {
+            throw new LedgerException("Get Transactions", "Limit Must Be Positive");
+        }
+
+        List<Transaction> transactions = new ArrayList<>();
+        sealLock.readLock().lock();
+        try {
+            int id = address == null ? -1 : liveAccounts.indexOf(address);
+            if (id < 0) {
+                throw new LedgerException("Get Transactions", "Account Does Not Exist");
+            }
+
+            //Blocks handed to the background sealer are indexed before they are committed
+            int lastBlock = blockMap.isEmpty() ? 0 : blockMap.lastKey();
+            AccountTransactionIndex index = accountTransactions;
+            int size = index.size(id);
+            int i = fromBlock < 1 ? 0 : index.firstAtOrAfter(id, fromBlock, Math.max(fromIndex, 0));
+            Block block = null;
+            for (; i < size; i++) {
+                long position = index.get(id, i);
+                int blockNumber = AccountTransactionIndex.blockNumber(position);
+                if (blockNumber > lastBlock) {
+                    //Resume from the block still being committed
+                    return new TransactionPage(transactions, blockNumber, AccountTransactionIndex.index(position));
+                }
+                if (transactions.size() == limit) {
+                    return new TransactionPage(transactions, blockNumber, AccountTransactionIndex.index(position));
+                }
+                if (block == null || block.getBlockNumber() != blockNumber) {
+                    block = committedBlock(blockNumber);
+                }
+                transactions.add(block.getTransactionList().get(AccountTransactionIndex.index(position)));
+            }
+        } finally {
+            sealLock.readLock().unlock();
+        }
+        return new TransactionPage(transactions, 0, 0);
+    }
+
+    /**
+     * Get proof that the Transaction is part of its committed Block. The proof is checked
+     * against the Block hash with MerkleProof.verify.
+     * @param transactionId
+     * @return MerkleProof
+     * @throws LedgerException
+     */
+    public MerkleProof getInclusionProof(String transactionId) throws LedgerException {
+
+        Transaction transaction = getTransaction(transactionId);
+        if (transaction == null) {
+            throw new LedgerException("Get Inclusion Proof", "Transaction Does Not Exist");
+        }
+
+        //The position is recorded at seal; the block joins the map once it is hashed
+        Long position = transactionPositions.get(transactionId);
+        Block block = position == null ? null : committedBlock(AccountTransactionIndex.blockNumber(position));
+        if (block == null) {
+            throw new LedgerException("Get Inclusion Proof", "Transaction Is Not Committed to a Block");
+        }
+        return MerkleProof.create(seed, block, AccountTransactionIndex.index(position));
+    }
+
+    /**
+     * Get the committed Blocks in the given range in block order. The stream is lazy:
+     * Blocks on the heap are not copied, Blocks evicted from the heap are read from the
+     * block store as the stream reaches them, and Blocks committed after the call are left
+     * out. Pruned and evicted Blocks are returned without account state; use getBlock for
+     * their balances. Blocks before a restored snapshot that the store does not hold are
+     * not included.
+     * @param fromBlock first block number, inclusive
+     * @param toBlock last block number, inclusive
+     * @return Stream of Blocks, empty if no committed Block is in the range
+     */
+    public Stream<Block> getBlocks(int fromBlock, int toBlock) {
+        NavigableMap<Integer,Block> blocks = blockMap;
+        if (blocks.isEmpty()) {
+            return Stream.empty();
+        }
+        //Fix the end of the range so that the view does not grow while it is consumed
+        int lastBlock = Math.min(toBlock, blocks.lastKey());
+        int firstBlock = Math.max(fromBlock, blockStore == null ? blocks.firstKey() : 1);
+        if (firstBlock > lastBlock) {
+            return Stream.empty();
+        }
+        return IntStream.rangeClosed(firstBlock, lastBlock).mapToObj(this::committedBlock).filter(Objects::nonNull);
+    }
+
+    /**
+     * Get the Transactions of the committed Blocks in the given range in chain order.
+     * Each Block's Transaction list is streamed in place, so consumers stopping early
+     * do not visit the remaining Blocks.
+     * @param fromBlock first block number, inclusive
+     * @param toBlock last block number, inclusive
+     * @return Stream of Transactions
+     */
+    public Stream<Transaction> getTransactions(int fromBlock, int toBlock) {
+        return getBlocks(fromBlock, toBlock).flatMap(block -> block.getTransactionList().stream());
+    }
+
+    /**
+     * Get number of Blocks in the Blockchain
+     * @return int representing number of blocks committed to Blockchain
+     */
+    public int getNumberOfBlocks(){
+        //Blocks before a restored snapshot are counted although they are not held in the map
+        return blockMap.isEmpty() ? 0 : blockMap.lastKey();
+    }
+
+    /**
+     * Method for validating Blockchain.
+     * Check each block for Hash consistency
+     * Check each block for Transaction count
+     * Check account balances against the total
+     */
+    public void validate() throws LedgerException {
+
+        if(blockMap.isEmpty()){
+            throw new LedgerException("Validate", "No Block Has Been Committed");
+        }
+
+        Block committedBlock = blockMap.lastEntry().getValue();
+        //The newest block always keeps its account state
+        long totalBalance = committedBlock.getAccountState().sumBalances();
+
+        long fees = checkpointFees;
+        //Blocks covered by the restored snapshot were validated before it was taken
+        Block previousBlock = checkpointBlockNumber > 0 ? committedBlock(checkpointBlockNumber) : null;
+        for(int blockNumber = checkpointBlockNumber + 1; blockNumber <= committedBlock.getBlockNumber(); blockNumber++){
+            Block block = requireCommittedBlock(blockNumber);
+
+            //Check for Hash Consistency
+            if(previousBlock != null && !block.getPreviousHash().equals(previousBlock.getHash())){
+                throw new LedgerException("Validate", "Hash Is Inconsistent: "
+                        + block.getBlockNumber());
+            }
+
+            checkTransactionCount(block);
+            fees += getFees(block);
+            previousBlock = block;
+        }
+
+        long adjustedBalance = totalBalance + fees;
+
+        //Check for account balances against the total
+        if(adjustedBalance != Integer.MAX_VALUE){
+            throw new LedgerException("Validate", "Balance Does Not Add Up");
+        }
+
+        advanceWatermark(committedBlock, fees);
+    }
+
+    /**
+     * Method for validating only the blocks committed since the last successful validation.
+     * Each new block is checked for Hash consistency against the block before it and for
+     * Transaction count. The balance check compares the fees of the validated blocks with the
+     * balance total that the last block's account state keeps up to date as balances are
+     * committed, so it does not revisit accounts.
+     * Use validate for a full re-validation of every block and account.
+     */
+    public void validateIncremental() throws LedgerException {
+
+        if(blockMap.isEmpty()){
+            throw new LedgerException("Validate", "No Block Has Been Committed");
+        }
+
+        synchronized (validationLock) {
+            Block committedBlock = blockMap.lastEntry().getValue();
+            long fees = validatedFees;
+            String hash = validatedHash;
+
+            for(int blockNumber = validatedBlockNumber + 1; blockNumber <= committedBlock.getBlockNumber();
+                    blockNumber++){
+                Block block = requireCommittedBlock(blockNumber);
+
+                //Check for Hash Consistency
+                if(block.getBlockNumber() != 1 && !block.getPreviousHash().equals(hash)){
+                    throw new LedgerException("Validate", "Hash Is Inconsistent: "
+                            + block.getBlockNumber());
+                }
+
+                checkTransactionCount(block);
+                fees += getFees(block);
+                hash = block.getHash();
+            }
+
+            //Check for balance total against the fees
+            if(committedBlock.getAccountState().totalBalance() + fees != Integer.MAX_VALUE){
+                throw new LedgerException("Validate", "Balance Does Not Add Up");
+            }
+
+            validatedBlockNumber = committedBlock.getBlockNumber();
+            validatedHash = hash;
+            validatedFees = fees;
+        }
+    }
+
+    /**
+     * Get a committed block from the heap or the block store for validation
+     * @param blockNumber
+     * @return Block
+     * @throws LedgerException if neither holds the block
+     */
+    private Block requireCommittedBlock(int blockNumber) throws LedgerException {
+        Block block = committedBlock(blockNumber);
+        if (block == null) {
+            throw new LedgerException("Validate", "Block Is Missing: " + blockNumber);
+        }
+        return block;
+    }
+
+    /**
+     * Method for deep verification of the Blockchain on the common ForkJoinPool.
+     * See deepVerify(ForkJoinPool).
+     * @return VerificationResult
+     * @throws LedgerException
+     */
+    public VerificationResult deepVerify() throws LedgerException {
+        return deepVerify(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Method for deep verification of the Blockchain.
+     * Recompute each block's Merkle root from its Transactions and the seed
+     * Check each block's previous Hash against the block before it
+     * Blocks are split across the pool; the lowest inconsistent block is reported,
+     * the same block a sequential check would stop at.
+     * @param pool
+     * @return VerificationResult holding the first inconsistent block and the throughput
+     * @throws LedgerException
+     */
+    public VerificationResult deepVerify(ForkJoinPool pool) throws LedgerException {
+
+        if(blockMap.isEmpty()){
+            throw new LedgerException("Deep Verify", "No Block Has Been Committed");
+        }
+
+        long start = System.nanoTime();
+        //Blocks evicted from the heap are read from the block store by the task that checks them
+        int firstBlock = blockStore == null ? blockMap.firstKey() : Math.max(1, checkpointBlockNumber);
+        int lastBlock = blockMap.lastKey();
+        VerifyTask task = new VerifyTask(this::committedBlock, firstBlock, firstBlock, lastBlock + 1, seed,
+                merkleEngine, checkpointBlockNumber);
+        int firstInvalid = pool.invoke(task);
+        long elapsed = System.nanoTime() - start;
+
+        int blockCount = lastBlock - firstBlock + 1;
+        if (firstInvalid < 0) {
+            return new VerificationResult(blockCount, 0, null, elapsed);
+        }
+        return new VerificationResult(blockCount, firstInvalid, task.verify(firstInvalid), elapsed);
+    }
+
+    /**
+     * Task verifying a range of blocks, splitting it while it is larger than the threshold
+     */
+    private static final class VerifyTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8;
+
+        // Tasks only run in the pool and are never serialised
+        private final transient IntFunction<Block> blocks;
+        private final int firstBlock;
+        private final int from;
+        private final int to;
+        private final String seed;
+        private final transient MerkleEngine merkleEngine;
+        private final int checkpointBlockNumber;
+
+        VerifyTask(IntFunction<Block> blocks, int firstBlock, int from, int to, String seed,
+                   MerkleEngine merkleEngine, int checkpointBlockNumber) {
+            this.blocks = blocks;
+            this.firstBlock = firstBlock;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.merkleEngine = merkleEngine;
+            this.checkpointBlockNumber = checkpointBlockNumber;
+        }
+
+        /**
+         * @return number of the first inconsistent block in the range, or -1
+         */
+        @Override
+        protected Integer compute() {
+            if (to - from <= THRESHOLD) {
+                for (int blockNumber = from; blockNumber < to; blockNumber++) {
+                    if (verify(blockNumber) != null) {
+                        return blockNumber;
+                    }
+                }
+                return -1;
+            }
+
+            int middle = (from + to) >>> 1;
+            VerifyTask left = new VerifyTask(blocks, firstBlock, from, middle, seed, merkleEngine,
+                    checkpointBlockNumber);
+            VerifyTask right = new VerifyTask(blocks, firstBlock, middle, to, seed, merkleEngine,
+                    checkpointBlockNumber);
+            left.fork();
+            int rightResult = right.compute();
+            int leftResult = left.join();
+            return leftResult >= 0 ? leftResult : rightResult;
+        }
+
+        /**
+         * Check a single block
+         * @param blockNumber
+         * @return reason the block is inconsistent, or null
+         */
+        String verify(int blockNumber) {
+            //Blocks covered by the restored snapshot were verified before it was taken
+            if (blockNumber <= checkpointBlockNumber) {
+                return null;
+            }
+
+            Block block = blocks.apply(blockNumber);
+            if (block == null) {
+                return "Block Is Missing: " + blockNumber;
+            }
+
+            if (blockNumber > firstBlock) {
+                Block previousBlock = blocks.apply(blockNumber - 1);
+                if (previousBlock == null) {
+                    return "Block Is Missing: " + (blockNumber - 1);
+                }
+                if (!Objects.equals(block.getPreviousHash(), previousBlock.getHash())) {
+                    return "Hash Is Inconsistent";
+                }
+            }
+
+            try {
+                String root = merkleEngine.computeRoot(seed, block.getTransactionList(), block.getLeafFormat());
+                if (!root.equals(block.getHash())) {
+                    return "Merkle Root Mismatch";
+                }
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Check Transaction count against the size policy the block was sealed under
+     * @param block
+     * @throws LedgerException
+     */
+    private static void checkTransactionCount(Block block) throws LedgerException {
+        int transactionCount = block.getTransactionList().size();
+        if(block.isSealedByAge()){
+            if(transactionCount < 1 || transactionCount > block.getMaxTransactions()){
+                throw new LedgerException("Validate", "Transaction Count Is Not Within "
+                        + block.getMaxTransactions() + " In Block: " + block.getBlockNumber());
+            }
+        } else if(transactionCount != block.getMaxTransactions()){
+            throw new LedgerException("Validate", "Transaction Count Is Not " + block.getMaxTransactions()
+                    + " In Block: " + block.getBlockNumber());
+        }
+    }
+
+    private static long getFees(Block block) {
+        long fees = 0;
+        for(Transaction transaction : block.getTransactionList()){
+            fees += transaction.getFee();
+        }
+        return fees;
+    }
+
+    /**
+     * Record the given block as validated with the fee total up to it
+     */
+    private void advanceWatermark(Block block, long fees) {
+        synchronized (validationLock) {
+            if (block.getBlockNumber() >= validatedBlockNumber) {
+                validatedBlockNumber = block.getBlockNumber();
+                validatedHash = block.getHash();
+                validatedFees = fees;
+            }
+        }
+    }
+
+    /**
+     * Helper method for CommandProcessor
+     * @return current block we are working with
+     */
+    public Block getUncommittedBlock(){
+        return uncommittedBlock;
+    }
+
+    /**
+     * Helper method allowing reset the state of the Ledger. An attached write-ahead log,
+     * block store and snapshot directory are emptied along with the chain.
+     */
+    public void reset(){
+        sealLock.writeLock().lock();
+        try {
+            clearChain();
+            WriteAheadLog log = writeAheadLog;
+            BlockStore store = blockStore;
+            SnapshotStore snapshots = snapshotStore;
+            try {
+                if (log != null) {
+                    log.truncate();
+                }
+                if (store != null) {
+                    store.clear();
+                }
+                if (snapshots != null) {
+                    snapshots.clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the chain with a fresh genesis block. Caller holds the write lock.
+     */
+    private void clearChain() {
+        //Let blocks already handed to the sealer land before the chain is replaced
+        try {
+            awaitSealing();
+        } catch (LedgerException e) {
+            // The chain holding the failed block is discarded below
+        }
+        blockMap = new ConcurrentSkipListMap<>();
+        transactionIndex = new ConcurrentHashMap<>();
+        transactionPositions = new ConcurrentHashMap<>();
+        checkpointBlockNumber = 0;
+        checkpointFees = 0;
+        checkpointTransactionIds = Set.of();
+        snapshotTransactionIds = snapshotStore == null ? null : new ArrayList<>();
+        synchronized (validationLock) {
+            validatedBlockNumber = 0;
+            validatedHash = null;
+            validatedFees = 0;
+        }
+        liveAccounts = newAccountTable();
+        accountDirectory = new AccountDirectory(liveAccounts);
+        balanceHistory = new BalanceHistory();
+        accountTransactions = new AccountTransactionIndex();
+        uncommittedBlock = new Block(1, "", accountDirectory);
+        uncommittedBlock.setMaxTransactions(maxTransactionsPerBlock);
+        uncommittedBlock.setLiveAccounts(liveAccounts);
         uncommittedBlock.addAccount("master", new Account("master", Integer.MAX_VALUE));
     }
+
+    /**
+     * Getter Method for the attached write-ahead log
+     * @return WriteAheadLog or Null when the ledger is not logged
+     */
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    /**
+     * Restore the chain from the given write-ahead log and keep logging to it.
+     * The current chain is replaced by the committed blocks and the uncommitted block
+     * recorded in the log; a torn record at the end of the log is discarded. When snapshots
+     * are enabled the newest valid snapshot is loaded first and the log is read from the
+     * position the snapshot's block was sealed at.
+     * @param path
+     * @param durability
+     * @throws LedgerException
+     */
+    public void openLog(Path path, Durability durability) throws LedgerException {
+        sealLock.writeLock().lock();
+        try {
+            closeLog();
+            clearChain();
+
+            //Start from the newest checkpoint; the log supplies everything after it
+            SnapshotStore snapshots = snapshotStore;
+            long logPosition = 0;
+            if (snapshots != null) {
+                SnapshotStore.Snapshot snapshot = loadSnapshot(snapshots);
+                if (snapshot != null) {
+                    installSnapshot(snapshot, loadTransactionIds(snapshots, snapshot));
+                    logPosition = Math.max(0, snapshot.getLogPosition());
+                }
+            }
+
+            WriteAheadLog log;
+            try {
+                log = new WriteAheadLog(path, durability);
+            } catch (IOException e) {
+                throw new LedgerException("Open Log", "Log Could Not Be Opened: " + path);
+            }
+
+            try {
+                //A log shorter than the snapshot records is read from the start
+                replay(log, logPosition <= log.size() ? logPosition : 0);
+            } catch (IOException | LedgerException | RuntimeException e) {
+                clearChain();
+                try {
+                    log.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                if (e instanceof LedgerException ledgerException) {
+                    throw ledgerException;
+                }
+                throw new LedgerException("Replay Log", "Log Could Not Be Read: " + e.getMessage());
+            }
+
+            writeAheadLog = log;
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Force the attached write-ahead log to disk and detach it
+     * @throws LedgerException
+     */
+    public void closeLog() throws LedgerException {
+        sealLock.writeLock().lock();
+        try {
+            WriteAheadLog log = writeAheadLog;
+            if (log == null) {
+                return;
+            }
+            awaitSealing();
+            writeAheadLog = null;
+            try {
+                log.close();
+            } catch (IOException e) {
+                throw new LedgerException("Close Log", "Log Could Not Be Closed");
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the chain from the log records. Transactions are queued until the header of the
+     * block holding them is read; the block is then rebuilt, sealed and its hash checked against
+     * the logged one. Transactions without a header form the uncommitted block.
+     * Caller holds the write lock and no log is attached yet.
+     * @param log
+     * @param position 0, or the position the restored snapshot's block was sealed at
+     */
+    private void replay(WriteAheadLog log, long position) throws IOException, LedgerException {
+
+        Deque<Transaction> pending = new ArrayDeque<>();
+
+        log.read(new WriteAheadLog.Visitor() {
+            @Override
+            public void account(String address) {
+                uncommittedBlock.getAccountBalanceMap().putIfAbsent(address, new Account(address, 0));
+            }
+
+            @Override
+            public void transaction(Transaction transaction) {
+                pending.add(transaction);
+            }
+
+            @Override
+            public void block(WriteAheadLog.BlockHeader header) throws LedgerException {
+                if (header.getBlockNumber() <= checkpointBlockNumber) {
+                    //Covered by the snapshot; read from its position the block's transactions precede it
+                    for (int i = 0; position == 0 && i < header.getTransactionCount() && !pending.isEmpty(); i++) {
+                        pending.poll();
+                    }
+                    return;
+                }
+
+                Block block = uncommittedBlock;
+                if (header.getBlockNumber() != block.getBlockNumber()
+                        || header.getTransactionCount() > pending.size()) {
+                    throw new LedgerException("Replay Log", "Block Is Out Of Order: " + header.getBlockNumber());
+                }
+
+                block.setMaxTransactions(header.getMaxTransactions());
+                block.setSealedByAge(header.isSealedByAge());
+                for (int i = 0; i < header.getTransactionCount(); i++) {
+                    replayTransaction(block, pending.poll());
+                }
+
+                Block nextBlock = startNextBlock();
+                MerkleEngine blockMerkleEngine = cacheMerkleLevels ? null : merkleEngine;
+                commitBlock(block, nextBlock, seed, header.getLeafFormat(), blockMerkleEngine, null, blockStore);
+                if (!block.getHash().equals(header.getHash())
+                        || !Objects.equals(block.getPreviousHash(), header.getPreviousHash())) {
+                    throw new LedgerException("Replay Log", "Block Hash Mismatch: " + header.getBlockNumber());
+                }
+            }
+        }, position);
+
+        //Remaining transactions belong to the block that was being built
+        Block block = uncommittedBlock;
+        for (Transaction transaction : pending) {
+            replayTransaction(block, transaction);
+            if (block.getTransactionList().size() >= block.getMaxTransactions()) {
+                Block nextBlock = startNextBlock();
+                commitBlock(block, nextBlock, seed, leafFormat, cacheMerkleLevels ? null : merkleEngine, null, blockStore);
+                block = nextBlock;
+            }
+        }
+    }
+
+    /**
+     * Reapply a logged transaction to the given block. The funds check is not repeated,
+     * since the transaction was accepted before it was logged and settlement legs may
+     * leave the bridge account below zero.
+     * @param block
+     * @param transaction
+     * @throws LedgerException
+     */
+    private void replayTransaction(Block block, Transaction transaction) throws LedgerException {
+        transaction.setPayer(getWorkingAccount(block, transaction.getPayer()));
+        transaction.setReceiver(getWorkingAccount(block, transaction.getReceiver()));
+        moveFunds(block, transaction, true);
+        block.getTransactionList().add(transaction);
+        transactionIndex.put(transaction.getTransactionId(), transaction);
+    }
+
+    /**
+     * Getter Method for the attached block store
+     * @return BlockStore or Null when committed blocks are kept on the heap only
+     */
+    public BlockStore getBlockStore() {
+        return blockStore;
+    }
+
+    /**
+     * Keep committed blocks in the memory-mapped block store in the given directory.
+     * Blocks already committed are added to the store; blocks the store already holds
+     * must match the chain.
+     * @param directory
+     * @param segmentSize size of new segment files in bytes
+     * @throws LedgerException
+     */
+    public void openBlockStore(Path directory, long segmentSize) throws LedgerException {
+        sealLock.writeLock().lock();
+        try {
+            closeBlockStore();
+            //Blocks still with the sealer must reach the block map before it is copied
+            awaitSealing();
+
+            BlockStore store;
+            try {
+                store = new BlockStore(directory, segmentSize);
+            } catch (IOException e) {
+                throw new LedgerException("Open Block Store", "Block Store Could Not Be Opened: " + directory);
+            }
+
+            try {
+                for (Block block : blockMap.values()) {
+                    store.append(block);
+                }
+            } catch (IOException e) {
+                try {
+                    store.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                throw new LedgerException("Open Block Store", e.getMessage());
+            }
+
+            blockStore = store;
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flush the attached block store and detach it
+     * @throws LedgerException
+     */
+    public void closeBlockStore() throws LedgerException {
+        sealLock.writeLock().lock();
+        try {
+            BlockStore store = blockStore;
+            if (store == null) {
+                return;
+            }
+            awaitSealing();
+            restoreEvictedBlocks();
+            blockStore = null;
+            try {
+                store.close();
+            } catch (IOException e) {
+                throw new LedgerException("Close Block Store", "Block Store Could Not Be Closed");
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put the blocks evicted from the heap back into the block map, with the account state
+     * recorded for them in the balance history. Caller holds the write lock.
+     */
+    private void restoreEvictedBlocks() {
+        if (blockMap.isEmpty()) {
+            return;
+        }
+        for (int blockNumber = Math.max(1, checkpointBlockNumber); blockNumber < blockMap.lastKey(); blockNumber++) {
+            if (!blockMap.containsKey(blockNumber)) {
+                Block block = committedBlock(blockNumber);
+                if (block != null) {
+                    blockMap.put(blockNumber, withHistoricalAccountState(block));
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter Method for the snapshot directory
+     * @return SnapshotStore or Null when snapshots are disabled
+     */
+    public SnapshotStore getSnapshotStore() {
+        return snapshotStore;
+    }
+
+    /**
+     * Write a snapshot of the account state to the given directory every interval blocks.
+     * Snapshots are written in the background and only the newest retention snapshots are kept.
+     * Enabled on a ledger with committed blocks, the directory is emptied and the first snapshot
+     * records the ids of every transaction committed so far.
+     * @param directory
+     * @param interval number of committed blocks between snapshots
+     * @param retention number of snapshots to keep
+     * @throws LedgerException
+     */
+    public void enableSnapshots(Path directory, int interval, int retention) throws LedgerException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Snapshot Interval Must Be Positive");
+        }
+
+        SnapshotStore store;
+        try {
+            store = new SnapshotStore(directory, retention);
+        } catch (IOException e) {
+            throw new LedgerException("Enable Snapshots", "Snapshot Directory Could Not Be Opened: " + directory);
+        }
+
+        sealLock.writeLock().lock();
+        try {
+            disableSnapshots();
+            if (!blockMap.isEmpty()) {
+                try {
+                    store.clear();
+                } catch (IOException e) {
+                    store.close();
+                    throw new LedgerException("Enable Snapshots", "Snapshot Directory Could Not Be Cleared: " + directory);
+                }
+                snapshotTransactionIds = committedTransactionIds(uncommittedBlock.getTransactionList());
+            } else {
+                snapshotTransactionIds = new ArrayList<>();
+            }
+            snapshotInterval = interval;
+            snapshotStore = store;
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop taking snapshots once pending snapshots are written
+     */
+    public void disableSnapshots() {
+        sealLock.writeLock().lock();
+        try {
+            SnapshotStore store = snapshotStore;
+            if (store == null) {
+                return;
+            }
+            //Periodic snapshots are handed over by the sealer
+            try {
+                awaitSealing();
+            } catch (LedgerException e) {
+                // Nothing to snapshot for a block that failed to seal
+            }
+            snapshotStore = null;
+            snapshotTransactionIds = null;
+            store.close();
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot the latest committed block together with the contents of the uncommitted
+     * block. Only copying the uncommitted block holds up transaction processing; the
+     * snapshot itself is written in the background.
+     * @throws LedgerException
+     */
+    public void takeSnapshot() throws LedgerException {
+        SnapshotStore store = snapshotStore;
+        if (store == null) {
+            throw new LedgerException("Take Snapshot", "Snapshots Are Not Enabled");
+        }
+
+        Block committedBlock;
+        Map<String,Account> committedAccounts;
+        int maxTransactions;
+        List<String> newAccounts = new ArrayList<>();
+        List<Transaction> transactions;
+        List<String> transactionIds;
+
+        sealLock.writeLock().lock();
+        try {
+            awaitSealing();
+            if (blockMap.isEmpty()) {
+                throw new LedgerException("Take Snapshot", "No Block Has Been Committed");
+            }
+            committedBlock = blockMap.lastEntry().getValue();
+
+            Block block = uncommittedBlock;
+            maxTransactions = block.getMaxTransactions();
+            transactions = new ArrayList<>(block.getTransactionList());
+            transactionIds = takeSnapshotTransactionIds();
+            committedAccounts = committedBlock.getAccountBalanceMap();
+            Map<String,Account> accounts = block.getAccountBalanceMap();
+            if (accounts.size() != committedAccounts.size()) {
+                for (String address : accounts.keySet()) {
+                    if (!committedAccounts.containsKey(address)) {
+                        newAccounts.add(address);
+                    }
+                }
+            }
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+
+        store.writeAsync(() -> snapshotOf(committedBlock, committedAccounts, transactionIds, maxTransactions, newAccounts,
+                transactions));
+    }
+
+    /**
+     * Replace the chain with the newest valid snapshot, including the transactions
+     * the uncommitted block held when the snapshot was taken. Use openLog instead when
+     * a write-ahead log holds the transactions that followed the snapshot.
+     * @return false if there is no valid snapshot
+     * @throws LedgerException
+     */
+    public boolean restoreSnapshot() throws LedgerException {
+        SnapshotStore store = snapshotStore;
+        if (store == null) {
+            throw new LedgerException("Restore Snapshot", "Snapshots Are Not Enabled");
+        }
+
+        sealLock.writeLock().lock();
+        try {
+            if (writeAheadLog != null) {
+                throw new LedgerException("Restore Snapshot", "Write-Ahead Log Is Attached");
+            }
+            SnapshotStore.Snapshot snapshot = loadSnapshot(store);
+            if (snapshot == null) {
+                return false;
+            }
+
+            Set<String> transactionIds = loadTransactionIds(store, snapshot);
+            clearChain();
+            installSnapshot(snapshot, transactionIds);
+            Block block = uncommittedBlock;
+            for (String address : snapshot.getUncommittedAccounts()) {
+                block.getAccountBalanceMap().putIfAbsent(address, new Account(address, 0));
+            }
+            for (Transaction transaction : snapshot.getUncommittedTransactions()) {
+                replayTransaction(block, transaction);
+            }
+            return true;
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+    }
+
+    private static SnapshotStore.Snapshot loadSnapshot(SnapshotStore store) throws LedgerException {
+        try {
+            store.awaitWrites();
+            return store.loadLatest();
+        } catch (IOException e) {
+            throw new LedgerException("Restore Snapshot", "Snapshot Could Not Be Read: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> loadTransactionIds(SnapshotStore store, SnapshotStore.Snapshot snapshot)
+            throws LedgerException {
+        try {
+            return store.readTransactionIds(snapshot);
+        } catch (IOException e) {
+            throw new LedgerException("Restore Snapshot", "Transaction Ids Could Not Be Read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Capture the account state of a committed block. Runs on the snapshot writer;
+     * the block's accounts are frozen, so they can be read without holding any lock.
+     * They are passed in since the block itself may have been pruned by then.
+     */
+    private static SnapshotStore.Snapshot snapshotOf(Block block, Map<String,Account> accounts,
+                                                     List<String> transactionIds,
+                                                     int uncommittedMaxTransactions,
+                                                     List<String> uncommittedAccounts,
+                                                     List<Transaction> uncommittedTransactions) {
+
+        long totalBalance = 0;
+        for (Account account : accounts.values()) {
+            totalBalance += account.getLongBalance();
+        }
+        //Every unit missing from the initial supply was paid out as a fee
+        int fees = (int) (Integer.MAX_VALUE - totalBalance);
+
+        return new SnapshotStore.Snapshot(block.getBlockNumber(), block.getPreviousHash(), block.getHash(),
+                block.getMaxTransactions(), block.isSealedByAge(), block.getLeafFormat(), fees,
+                block.getLogPosition(), accounts, transactionIds, uncommittedMaxTransactions, uncommittedAccounts,
+                uncommittedTransactions);
+    }
+
+    /**
+     * Hand over the ids committed since the last snapshot and start collecting anew.
+     * Caller holds the write lock.
+     * @return List of transaction ids
+     */
+    private List<String> takeSnapshotTransactionIds() {
+        List<String> ids = snapshotTransactionIds;
+        snapshotTransactionIds = new ArrayList<>();
+        return ids;
+    }
+
+    /**
+     * Collect the ids of every committed transaction, including those committed before a
+     * restored snapshot, for the first snapshot of a ledger that already has committed blocks.
+     * Caller holds the write lock.
+     * @param uncommitted transactions of the uncommitted block, which are left out
+     * @return List of transaction ids
+     */
+    private List<String> committedTransactionIds(List<Transaction> uncommitted) {
+        Set<String> uncommittedIds = new HashSet<>();
+        for (Transaction transaction : uncommitted) {
+            uncommittedIds.add(transaction.getTransactionId());
+        }
+        List<String> ids = new ArrayList<>(checkpointTransactionIds.size() + transactionIndex.size());
+        ids.addAll(checkpointTransactionIds);
+        for (String id : transactionIndex.keySet()) {
+            if (!uncommittedIds.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Make the snapshot's block the last committed block of an empty chain.
+     * Caller holds the write lock.
+     * @param snapshot
+     * @param transactionIds ids of the transactions committed up to the snapshot's block
+     */
+    private void installSnapshot(SnapshotStore.Snapshot snapshot, Set<String> transactionIds) {
+
+        //The live table numbers the snapshot's accounts in the order they were written
+        liveAccounts = newAccountTable();
+        liveAccounts.load(snapshot.getAccounts());
+        accountDirectory = new AccountDirectory(liveAccounts);
+
+        Block block = new Block(snapshot.getBlockNumber(), snapshot.getPreviousHash(), accountDirectory);
+        block.setHash(snapshot.getHash());
+        block.setMaxTransactions(snapshot.getMaxTransactions());
+        block.setSealedByAge(snapshot.isSealedByAge());
+        block.setLeafFormat(snapshot.getLeafFormat());
+        block.setLogPosition(snapshot.getLogPosition());
+        for (Account account : snapshot.getAccounts().values()) {
+            block.addAccount(account.getAddress(), account);
+        }
+        block.setAccountCount(snapshot.getAccounts().size());
+
+        //The block store still holds the transactions of the snapshot block
+        BlockStore store = blockStore;
+        Block storedBlock = store == null ? null : store.readBlock(snapshot.getBlockNumber());
+        if (storedBlock != null && snapshot.getHash().equals(storedBlock.getHash())) {
+            block.getTransactionList().addAll(storedBlock.getTransactionList());
+        }
+        block.commitAccounts();
+
+        blockMap.put(block.getBlockNumber(), block);
+        checkpointBlockNumber = block.getBlockNumber();
+        checkpointFees = snapshot.getFees();
+        checkpointTransactionIds = transactionIds;
+        advanceWatermark(block, snapshot.getFees());
+
+        Block nextBlock = new Block(block.getBlockNumber() + 1, block);
+        nextBlock.setMaxTransactions(snapshot.getUncommittedMaxTransactions());
+        //Balances before the snapshot block are not known
+        balanceHistory = new BalanceHistory();
+        liveAccounts.recordAll(balanceHistory, block.getBlockNumber());
+        accountTransactions = new AccountTransactionIndex();
+        nextBlock.setLiveAccounts(liveAccounts);
+        uncommittedBlock = nextBlock;
+    }
+
+    /**
+     * Release the Ledger. The write-ahead log, block store and snapshot directory are
+     * detached, the background sealer and timer are stopped and a registered Ledger is
+     * removed from the registry. Blocks sealed afterwards are committed on the calling thread.
+     * @throws LedgerException
+     */
+    @Override
+    public void close() throws LedgerException {
+        try {
+            closeLog();
+            closeBlockStore();
+            disableSnapshots();
+        } finally {
+            sealLock.writeLock().lock();
+            try {
+                asyncSealing = false;
+                maxBlockAge = null;
+                shutdown();
+            } finally {
+                sealLock.writeLock().unlock();
+            }
+
+            if (registeredName != null) {
+                registry.remove(registeredName, this);
+            }
+            synchronized (Ledger.class) {
+                if (ledger == this) {
+                    ledger = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the background sealer, starting it on first use
+     * @return ExecutorService
+     */
+    private ExecutorService sealer() {
+        synchronized (executorLock) {
+            if (sealer == null) {
+                checkExecutorsRunning();
+                sealer = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-sealer-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return sealer;
+        }
+    }
+
+    /**
+     * Get the timer sealing blocks by age, starting it on first use
+     * @return ScheduledExecutorService
+     */
+    private ScheduledExecutorService sealTimer() {
+        synchronized (executorLock) {
+            if (sealTimer == null) {
+                checkExecutorsRunning();
+                sealTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-seal-timer-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return sealTimer;
+        }
+    }
+
+    private void checkExecutorsRunning() {
+        if (executorsStopped) {
+            throw new RejectedExecutionException("Ledger Is Closed");
+        }
+    }
+
+    /**
+     * Stop the background threads, letting the sealer finish the blocks handed to it
+     */
+    private void shutdown() {
+        synchronized (executorLock) {
+            executorsStopped = true;
+            if (sealer != null) {
+                sealer.shutdown();
+            }
+            if (sealTimer != null) {
+                sealTimer.shutdownNow();
+            }
+        }
+    }
 }
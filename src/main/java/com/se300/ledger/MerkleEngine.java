@@ -0,0 +1,22 @@
+package com.se300.ledger;
+
+import java.util.List;
+
+/**
+ * MerkleEngine interface implementation used by the Ledger to compute Block hashes
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public interface MerkleEngine {
+
+    /**
+     * Compute Merkle root over the ledger seed followed by the Block transactions
+     * @param seed
+     * @param transactions
+     * @param leafFormat
+     * @return String representing hex encoded Merkle root
+     */
+    String computeRoot(String seed, List<Transaction> transactions, LeafFormat leafFormat);
+}
@@ -0,0 +1,230 @@
+package com.se300.ledger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MerkleProof class implementation representing proof that a Transaction is part of a Block.
+ * The proof holds one step per tree level from the transaction leaf up to the root. The
+ * first step carries the sibling leaf as hashed, the following steps carry sibling node
+ * digests. A level where the node has no sibling is kept as a step without one, matching
+ * how MerkleTrees hashes an odd node on its own.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public final class MerkleProof {
+
+    /**
+     * Side of the node the sibling sits on
+     */
+    public enum Direction {
+        LEFT,
+        RIGHT,
+        NONE
+    }
+
+    private final String transactionId;
+    private final int blockNumber;
+    private final LeafFormat leafFormat;
+    private final List<Step> steps;
+
+    /**
+     * MerkleProof Constructor
+     * @param transactionId
+     * @param blockNumber
+     * @param leafFormat leaf format the block was hashed with
+     * @param steps
+     */
+    public MerkleProof(String transactionId, int blockNumber, LeafFormat leafFormat, List<Step> steps) {
+        this.transactionId = transactionId;
+        this.blockNumber = blockNumber;
+        this.leafFormat = leafFormat;
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    /**
+     * Build the proof for the transaction at the given position of a sealed block, using the
+     * block's cached Merkle levels when it has them
+     * @param seed
+     * @param block
+     * @param transactionIndex
+     * @return MerkleProof
+     */
+    static MerkleProof create(String seed, Block block, int transactionIndex) {
+
+        List<Transaction> transactions = block.getTransactionList();
+        byte[][] levels = block.getMerkleLevels();
+        if (levels == null) {
+            levels = BinaryMerkleEngine.computeLevels(seed, transactions, block.getLeafFormat());
+        }
+
+        List<Step> steps = new ArrayList<>(levels.length);
+
+        //Leaf 0 is the seed, so transaction i is leaf i + 1
+        int leafCount = transactions.size() + 1;
+        int position = transactionIndex + 1;
+        int sibling = position ^ 1;
+        if (sibling < leafCount) {
+            byte[] leaf = sibling == 0 ? seed.getBytes(StandardCharsets.UTF_8)
+                    : BinaryMerkleEngine.encodeLeaf(transactions.get(sibling - 1), block.getLeafFormat());
+            steps.add(new Step(sibling < position ? Direction.LEFT : Direction.RIGHT, leaf));
+        } else {
+            steps.add(new Step(Direction.NONE, null));
+        }
+
+        //Every level below the root contributes a sibling digest
+        for (int level = 0; level < levels.length - 1; level++) {
+            position >>>= 1;
+            sibling = position ^ 1;
+            int nodeCount = levels[level].length / BinaryMerkleEngine.DIGEST_LENGTH;
+            if (sibling < nodeCount) {
+                byte[] digest = new byte[BinaryMerkleEngine.DIGEST_LENGTH];
+                System.arraycopy(levels[level], sibling * BinaryMerkleEngine.DIGEST_LENGTH, digest, 0,
+                        BinaryMerkleEngine.DIGEST_LENGTH);
+                steps.add(new Step(sibling < position ? Direction.LEFT : Direction.RIGHT, digest));
+            } else {
+                steps.add(new Step(Direction.NONE, null));
+            }
+        }
+
+        return new MerkleProof(transactions.get(transactionIndex).getTransactionId(), block.getBlockNumber(),
+                block.getLeafFormat(), steps);
+    }
+
+    /**
+     * Check that the transaction is part of the block with the given hash. Only the proof
+     * steps are hashed, so the work grows with the logarithm of the block size.
+     * @param transaction
+     * @param proof
+     * @param blockHash
+     * @return true if the proof leads from the transaction to the block hash
+     */
+    public static boolean verify(Transaction transaction, MerkleProof proof, String blockHash) {
+
+        if (transaction == null || proof == null || blockHash == null || proof.steps.isEmpty()
+                || !proof.transactionId.equals(transaction.getTransactionId())) {
+            return false;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        //Leaves are hashed as raw bytes
+        byte[] leaf = BinaryMerkleEngine.encodeLeaf(transaction, proof.leafFormat);
+        Step first = proof.steps.get(0);
+        if (first.direction == Direction.LEFT) {
+            digest.update(first.sibling);
+        }
+        digest.update(leaf);
+        if (first.direction == Direction.RIGHT) {
+            digest.update(first.sibling);
+        }
+        byte[] current = digest.digest();
+
+        //Interior nodes hash the hex form of their children
+        byte[] hexPair = new byte[4 * BinaryMerkleEngine.DIGEST_LENGTH];
+        for (int i = 1; i < proof.steps.size(); i++) {
+            Step step = proof.steps.get(i);
+            if (step.sibling != null && step.sibling.length != BinaryMerkleEngine.DIGEST_LENGTH) {
+                return false;
+            }
+            int length = 0;
+            if (step.direction == Direction.LEFT) {
+                length += BinaryMerkleEngine.writeHex(step.sibling, 0, hexPair, length);
+            }
+            length += BinaryMerkleEngine.writeHex(current, 0, hexPair, length);
+            if (step.direction == Direction.RIGHT) {
+                length += BinaryMerkleEngine.writeHex(step.sibling, 0, hexPair, length);
+            }
+            digest.update(hexPair, 0, length);
+            current = digest.digest();
+        }
+
+        return BinaryMerkleEngine.toHex(current, 0).equals(blockHash);
+    }
+
+    /**
+     * Getter method for the proven transaction id
+     * @return
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Getter method for the number of the block holding the transaction
+     * @return
+     */
+    public int getBlockNumber() {
+        return blockNumber;
+    }
+
+    /**
+     * Getter method for the leaf format the block was hashed with
+     * @return
+     */
+    public LeafFormat getLeafFormat() {
+        return leafFormat;
+    }
+
+    /**
+     * Getter method for the proof steps from the leaf up to the root
+     * @return
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Get the hex encoded sibling digests above the leaf level
+     * @return List holding one hash per level, null where the node has no sibling
+     */
+    public List<String> getSiblingHashes() {
+        List<String> hashes = new ArrayList<>(steps.size() - 1);
+        for (int i = 1; i < steps.size(); i++) {
+            byte[] sibling = steps.get(i).sibling;
+            hashes.add(sibling == null ? null : BinaryMerkleEngine.toHex(sibling, 0));
+        }
+        return hashes;
+    }
+
+    /**
+     * Sibling of the proven node at one level of the tree
+     */
+    public static final class Step {
+
+        private final Direction direction;
+        private final byte[] sibling;
+
+        /**
+         * Step Constructor
+         * @param direction
+         * @param sibling sibling leaf at the first step, sibling digest above it, null without a sibling
+         */
+        public Step(Direction direction, byte[] sibling) {
+            if (direction == null || (direction == Direction.NONE) != (sibling == null)) {
+                throw new IllegalArgumentException("Sibling Must Be Given Unless Direction Is None");
+            }
+            this.direction = direction;
+            this.sibling = sibling == null ? null : sibling.clone();
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public byte[] getSibling() {
+            return sibling == null ? null : sibling.clone();
+        }
+    }
+}
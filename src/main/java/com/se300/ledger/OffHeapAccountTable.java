@@ -0,0 +1,220 @@
+package com.se300.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * OffHeapAccountTable class implementation keeping the live account state in direct
+ * ByteBuffers, so that the live balances, the addresses and the address index take no heap
+ * per account. Each account is a fixed-size record holding its balance and the location of
+ * its address bytes, which are stored once in an append-only arena. An open-addressing index
+ * of address hash and account number pairs maps addresses to records; lookups compare the
+ * address with the stored bytes without allocating. Handing out an Account or an address
+ * allocates the returned object only.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+final class OffHeapAccountTable extends AccountTable {
+
+    private static final int RECORD_BITS = 14;
+    private static final int RECORDS_PER_CHUNK = 1 << RECORD_BITS;
+    private static final int RECORD_MASK = RECORDS_PER_CHUNK - 1;
+
+    // Record layout; the dirty field of record n holds entry n of the changed account list
+    private static final int BALANCE = 0;
+    private static final int ADDRESS = 8;
+    private static final int LENGTH = 16;
+    private static final int EPOCH = 20;
+    private static final int DIRTY = 24;
+    private static final int RECORD_SIZE = 32;
+
+    private static final int ARENA_CHUNK_SIZE = 1 << 20;
+
+    // Index slot layout: address hash, then account number plus one, zero for a free slot
+    private static final int SLOT_SIZE = 8;
+    private static final int INITIAL_SLOTS = 1024;
+
+    // Chunks are only ever added, so holders of an account number never see records move
+    private volatile ByteBuffer[] records = new ByteBuffer[0];
+    private volatile ByteBuffer[] arena = new ByteBuffer[0];
+    private volatile ByteBuffer index = allocate(INITIAL_SLOTS * SLOT_SIZE);
+
+    // Guarded by the write lock
+    private int arenaPosition;
+    private int count;
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    int find(String address) {
+        int hash = spread(address);
+        ByteBuffer slots = index;
+        int mask = slots.capacity() / SLOT_SIZE - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots.getInt(slot * SLOT_SIZE + Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            //Records published after the slot was read are skipped; the caller retries under the lock
+            if (slots.getInt(slot * SLOT_SIZE) == hash && entry <= size() && matches(entry - 1, address)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Compare the stored address bytes with the UTF-8 encoding of the address, encoding it
+     * as the comparison goes so that lookups do not allocate. Unpaired surrogates compare
+     * as the three bytes of their code unit, as TransactionCodec stores them.
+     */
+    private boolean matches(int id, String address) {
+        ByteBuffer record = record(id);
+        int offset = offset(id);
+        long pointer = record.getLong(offset + ADDRESS);
+        ByteBuffer chunk = arena[(int) (pointer >>> 32)];
+        int position = (int) pointer;
+        int end = position + record.getInt(offset + LENGTH);
+
+        for (int i = 0; i < address.length(); i++) {
+            int c = address.charAt(i);
+            if (Character.isHighSurrogate((char) c) && i + 1 < address.length()
+                    && Character.isLowSurrogate(address.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, address.charAt(++i));
+            }
+
+            int length = c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            if (end - position < length) {
+                return false;
+            }
+            if (length == 1) {
+                if (chunk.get(position) != (byte) c) {
+                    return false;
+                }
+            } else {
+                //Lead byte, then six bits per continuation byte
+                int lead = length == 2 ? 0xC0 : length == 3 ? 0xE0 : 0xF0;
+                if (chunk.get(position) != (byte) (lead | (c >>> (6 * (length - 1))))) {
+                    return false;
+                }
+                for (int k = 1; k < length; k++) {
+                    if (chunk.get(position + k) != (byte) (0x80 | ((c >>> (6 * (length - 1 - k))) & 0x3F))) {
+                        return false;
+                    }
+                }
+            }
+            position += length;
+        }
+        return position == end;
+    }
+
+    @Override
+    void append(int id, String address, long balance) {
+        byte[] bytes = TransactionCodec.encodeString(address);
+
+        //Address bytes never straddle arena chunks
+        ByteBuffer[] chunks = arena;
+        if (chunks.length == 0 || chunks[chunks.length - 1].capacity() - arenaPosition < bytes.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunks.length - 1] = allocate(Math.max(ARENA_CHUNK_SIZE, bytes.length));
+            arenaPosition = 0;
+            arena = chunks;
+        }
+        ByteBuffer chunk = chunks[chunks.length - 1];
+        chunk.put(arenaPosition, bytes);
+
+        if (id >>> RECORD_BITS == records.length) {
+            ByteBuffer[] grown = Arrays.copyOf(records, records.length + 1);
+            grown[grown.length - 1] = allocate(RECORDS_PER_CHUNK * RECORD_SIZE);
+            records = grown;
+        }
+        ByteBuffer record = record(id);
+        int offset = offset(id);
+        record.putLong(offset + BALANCE, balance);
+        record.putLong(offset + ADDRESS, ((long) (chunks.length - 1) << 32) | arenaPosition);
+        record.putInt(offset + LENGTH, bytes.length);
+        record.putInt(offset + EPOCH, 0);
+        arenaPosition += bytes.length;
+
+        ByteBuffer slots = index;
+        if ((count + 1) * 2 > slots.capacity() / SLOT_SIZE) {
+            slots = resize(slots);
+            index = slots;
+        }
+        insert(slots, spread(address), id);
+        count++;
+    }
+
+    private static ByteBuffer resize(ByteBuffer slots) {
+        ByteBuffer resized = allocate(slots.capacity() * 2);
+        for (int slot = 0; slot < slots.capacity() / SLOT_SIZE; slot++) {
+            int entry = slots.getInt(slot * SLOT_SIZE + Integer.BYTES);
+            if (entry != 0) {
+                insert(resized, slots.getInt(slot * SLOT_SIZE), entry - 1);
+            }
+        }
+        return resized;
+    }
+
+    private static void insert(ByteBuffer slots, int hash, int id) {
+        int mask = slots.capacity() / SLOT_SIZE - 1;
+        int slot = hash & mask;
+        while (slots.getInt(slot * SLOT_SIZE + Integer.BYTES) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.putInt(slot * SLOT_SIZE, hash);
+        slots.putInt(slot * SLOT_SIZE + Integer.BYTES, id + 1);
+    }
+
+    private ByteBuffer record(int id) {
+        return records[id >>> RECORD_BITS];
+    }
+
+    private static int offset(int id) {
+        return (id & RECORD_MASK) * RECORD_SIZE;
+    }
+
+    @Override
+    String getAddress(int id) {
+        ByteBuffer record = record(id);
+        int offset = offset(id);
+        long pointer = record.getLong(offset + ADDRESS);
+        byte[] bytes = new byte[record.getInt(offset + LENGTH)];
+        arena[(int) (pointer >>> 32)].get((int) pointer, bytes);
+        return TransactionCodec.decodeString(bytes, 0, bytes.length);
+    }
+
+    @Override
+    long getBalance(int id) {
+        return record(id).getLong(offset(id) + BALANCE);
+    }
+
+    @Override
+    void storeBalance(int id, long balance) {
+        record(id).putLong(offset(id) + BALANCE, balance);
+    }
+
+    @Override
+    int getEpoch(int id) {
+        return record(id).getInt(offset(id) + EPOCH);
+    }
+
+    @Override
+    void setEpoch(int id, int epoch) {
+        record(id).putInt(offset(id) + EPOCH, epoch);
+    }
+
+    @Override
+    int getDirty(int position) {
+        return record(position).getInt(offset(position) + DIRTY);
+    }
+
+    @Override
+    void setDirty(int position, int id) {
+        record(position).putInt(offset(position) + DIRTY, id);
+    }
+}
@@ -0,0 +1,537 @@
+package com.se300.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ShardedLedger class implementation splitting accounts across independent Ledger shards by
+ * a hash of the address. Each shard has its own locks, block sequence and Merkle roots, so
+ * transfers between accounts of the same shard run in parallel with those of other shards.
+ *
+ * A transfer between shards is settled in two phases through the bridge account of each
+ * shard. The debit leg moves the amount and fee from the payer to the bridge of the payer's
+ * shard; the credit leg then moves the amount from the bridge of the receiver's shard to the
+ * receiver without a fee. If the credit leg is rejected the amount is refunded to the payer.
+ * Bridges are clearing accounts that may run below zero, so the master accounts never take
+ * part in settlement. Every leg is an ordinary transaction of one shard, so each shard keeps
+ * its own balance total, and the bridge balances of all shards net to the amounts of the
+ * transfers that have been debited but neither credited nor refunded.
+ *
+ * Such a transfer stays pending when its refund is rejected, or when the process stops
+ * between the legs. The debit leg is the record of the pending transfer: it is logged by the
+ * payer's shard like any other transaction, and a debit into a bridge without a matching
+ * credit or refund leg is refunded by recoverPendingTransfers, e.g. after the shard logs
+ * have been replayed.
+ *
+ * Transaction ids, including those of the settlement legs, are unique across all shards.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class ShardedLedger implements AutoCloseable {
+
+    // Clearing account created in every shard for cross-shard settlement
+    public static final String BRIDGE_ADDRESS = "bridge";
+
+    static final String CREDIT_SUFFIX = "#credit";
+    static final String REFUND_SUFFIX = "#refund";
+
+    private final String name;
+    private final String description;
+    private final Ledger[] shards;
+
+    // Ids reserved by transactions of any shard
+    private final Set<String> transactionIds = ConcurrentHashMap.newKeySet();
+
+    // Amount held in the payer shard's bridge by each debited transfer not yet settled, by id
+    private final Map<String, Long> unsettled = new ConcurrentHashMap<>();
+    // Ids of the transfers whose settlement is still running
+    private final Set<String> settling = ConcurrentHashMap.newKeySet();
+    // Held shared while a leg moves funds and updates unsettled, and exclusively to read
+    // the bridge balances and unsettled amounts together
+    private final ReentrantReadWriteLock settlementLock = new ReentrantReadWriteLock();
+
+    /**
+     * ShardedLedger Constructor
+     * @param name
+     * @param description
+     * @param seed
+     * @param shardCount
+     */
+    public ShardedLedger(String name, String description, String seed, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard Count Must Be Positive");
+        }
+        this.name = name;
+        this.description = description;
+        this.shards = new Ledger[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Ledger(name + "-shard-" + i, description, seed);
+        }
+        createBridges();
+    }
+
+    /**
+     * Create the bridge account in every shard
+     */
+    private void createBridges() {
+        for (Ledger shard : shards) {
+            try {
+                shard.createAccount(BRIDGE_ADDRESS);
+            } catch (LedgerException e) {
+                throw new IllegalStateException("Bridge Account Could Not Be Created: " + e.getReason());
+            }
+        }
+    }
+
+    /**
+     * Getter method for the name of the ShardedLedger
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter method for the ShardedLedger description
+     * @return
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Getter method for the number of shards
+     * @return
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Getter method for a single shard, e.g. to configure sealing or attach a log
+     * @param index
+     * @return Ledger holding the shard
+     */
+    public Ledger getShard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * Get the index of the shard holding the account. The master account lives in the
+     * shard its address hashes to; the master accounts of the other shards are never used.
+     * @param address
+     * @return int representing the shard index
+     */
+    public int getShardIndex(String address) {
+        int h = address == null ? 0 : address.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    private Ledger shardOf(String address) {
+        return shards[getShardIndex(address)];
+    }
+
+    /**
+     * Method for creating accounts in the shard the address hashes to
+     * @param address
+     * @return Account representing account in the Blockchain
+     * @throws LedgerException
+     */
+    public Account createAccount(String address) throws LedgerException {
+        return shardOf(address).createAccount(address);
+    }
+
+    /**
+     * Get the working copy of an Account from the block its shard is building
+     * @param address
+     * @return Account or Null
+     */
+    public Account getAccount(String address) {
+        return shardOf(address).getUncommittedBlock().getAccount(address);
+    }
+
+    /**
+     * Method handling the given transaction. Transfers within a shard take the normal
+     * path of the shard; transfers between shards are settled in two phases.
+     * @param transaction
+     * @return String representing transaction id
+     * @throws LedgerException
+     */
+    public String processTransaction(Transaction transaction) throws LedgerException {
+
+        if (BRIDGE_ADDRESS.equals(transaction.getPayer().getAddress())
+                || BRIDGE_ADDRESS.equals(transaction.getReceiver().getAddress())) {
+            throw new LedgerException("Process Transaction", "Bridge Account Is Reserved");
+        }
+
+        Ledger payerShard = shardOf(transaction.getPayer().getAddress());
+        Ledger receiverShard = shardOf(transaction.getReceiver().getAddress());
+        String transactionId = transaction.getTransactionId();
+        if (payerShard == receiverShard) {
+            reserveIds(transactionId);
+            try {
+                return payerShard.processTransaction(transaction);
+            } catch (LedgerException e) {
+                transactionIds.remove(transactionId);
+                throw e;
+            }
+        }
+
+        //Accounts missing from their shard would take funds out of the shard's balance total
+        if (payerShard.getUncommittedBlock().getAccount(transaction.getPayer().getAddress()) == null) {
+            throw new LedgerException("Process Transaction", "Payer Account Does Not Exist");
+        }
+        if (receiverShard.getUncommittedBlock().getAccount(transaction.getReceiver().getAddress()) == null) {
+            throw new LedgerException("Process Transaction", "Receiver Account Does Not Exist");
+        }
+
+        //Reserve the ids of every leg, so that a refund can never collide with another transaction
+        reserveIds(transactionId, transactionId + CREDIT_SUFFIX, transactionId + REFUND_SUFFIX);
+        return settle(transaction, payerShard, receiverShard);
+    }
+
+    /**
+     * Reserve the given transaction ids across all shards
+     * @param ids
+     * @throws LedgerException if any of the ids is already taken
+     */
+    private void reserveIds(String... ids) throws LedgerException {
+        for (int i = 0; i < ids.length; i++) {
+            if (!transactionIds.add(ids[i])) {
+                for (int j = 0; j < i; j++) {
+                    transactionIds.remove(ids[j]);
+                }
+                throw new LedgerException("Process Transaction", "Transaction Id Must Be Unique");
+            }
+        }
+    }
+
+    /**
+     * Settle a transfer between two shards through their bridge accounts. A transfer whose
+     * credit and refund legs are both rejected stays pending until recoverPendingTransfers.
+     * @param transaction
+     * @param payerShard
+     * @param receiverShard
+     * @return String representing transaction id
+     * @throws LedgerException
+     */
+    private String settle(Transaction transaction, Ledger payerShard, Ledger receiverShard)
+            throws LedgerException {
+
+        String transactionId = transaction.getTransactionId();
+        settling.add(transactionId);
+        try {
+            //Phase 1: debit the payer into the bridge of its shard, paying the fee once
+            Transaction debit = new Transaction(transactionId, transaction.getAmount(),
+                    transaction.getFee(), transaction.getNote(), transaction.getPayer(), bridgeOf(payerShard));
+            settlementLock.readLock().lock();
+            try {
+                payerShard.processTransaction(debit);
+                unsettled.put(transactionId, (long) transaction.getAmount());
+            } catch (LedgerException e) {
+                //A transfer whose debit leg was rejected leaves no trace in the shards
+                transactionIds.remove(transactionId);
+                transactionIds.remove(transactionId + CREDIT_SUFFIX);
+                transactionIds.remove(transactionId + REFUND_SUFFIX);
+                throw e;
+            } finally {
+                settlementLock.readLock().unlock();
+            }
+
+            //Phase 2: credit the receiver from the bridge of its shard
+            Transaction credit = new Transaction(transactionId + CREDIT_SUFFIX,
+                    transaction.getAmount(), 0, transaction.getNote(), bridgeOf(receiverShard),
+                    transaction.getReceiver());
+            LedgerException creditFailure;
+            settlementLock.readLock().lock();
+            try {
+                receiverShard.processBridgeTransaction(credit);
+                unsettled.remove(transactionId);
+                return transactionId;
+            } catch (LedgerException e) {
+                creditFailure = e;
+            } finally {
+                settlementLock.readLock().unlock();
+            }
+
+            try {
+                refund(transactionId, transaction.getAmount(), transaction.getNote(), payerShard,
+                        transaction.getPayer());
+            } catch (LedgerException e) {
+                LedgerException failure = new LedgerException("Process Transaction",
+                        "Cross-Shard Credit Failed: " + creditFailure.getReason() + "; Refund Is Pending");
+                failure.addSuppressed(e);
+                throw failure;
+            }
+            throw new LedgerException("Process Transaction", "Cross-Shard Credit Failed: " + creditFailure.getReason());
+        } finally {
+            settling.remove(transactionId);
+        }
+    }
+
+    /**
+     * Return the amount of a debited transfer from the bridge of the payer's shard
+     * @param transactionId
+     * @param amount
+     * @param note
+     * @param payerShard
+     * @param payer
+     * @throws LedgerException if the payer's shard rejects the refund leg
+     */
+    private void refund(String transactionId, int amount, String note, Ledger payerShard, Account payer)
+            throws LedgerException {
+        Transaction refund = new Transaction(transactionId + REFUND_SUFFIX, amount, 0, note,
+                bridgeOf(payerShard), payer);
+        settlementLock.readLock().lock();
+        try {
+            payerShard.processBridgeTransaction(refund);
+            unsettled.remove(transactionId);
+        } finally {
+            settlementLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the transfers that have been debited but neither credited nor refunded,
+     * leaving out those still being settled
+     * @return Set of transaction ids
+     */
+    public Set<String> getPendingTransfers() {
+        Set<String> pending = new HashSet<>(unsettled.keySet());
+        pending.removeAll(settling);
+        return pending;
+    }
+
+    /**
+     * Refund every transfer found debited into a bridge without a credit or refund leg,
+     * whether its refund was rejected or the process stopped between the legs. Transfers
+     * still being settled are left alone.
+     * @return int representing the number of transfers refunded
+     * @throws LedgerException naming the first transfer whose refund is rejected again;
+     * the other transfers are refunded all the same
+     */
+    public int recoverPendingTransfers() throws LedgerException {
+        int refunded = 0;
+        LedgerException failure = null;
+        for (Ledger shard : shards) {
+            List<Transaction> debits = new ArrayList<>();
+            for (Transaction transaction : shard.getIndexedTransactions()) {
+                if (BRIDGE_ADDRESS.equals(transaction.getReceiver().getAddress())
+                        && !BRIDGE_ADDRESS.equals(transaction.getPayer().getAddress())) {
+                    debits.add(transaction);
+                }
+            }
+            for (Transaction debit : debits) {
+                String transactionId = debit.getTransactionId();
+                if (settling.contains(transactionId) || isSettled(debit, shard)) {
+                    continue;
+                }
+                //Debits replayed from a log are not reserved yet
+                transactionIds.add(transactionId);
+                transactionIds.add(transactionId + CREDIT_SUFFIX);
+                transactionIds.add(transactionId + REFUND_SUFFIX);
+                unsettled.putIfAbsent(transactionId, (long) debit.getAmount());
+                try {
+                    refund(transactionId, debit.getAmount(), debit.getNote(), shard, debit.getPayer());
+                    refunded++;
+                } catch (LedgerException e) {
+                    if (failure == null) {
+                        failure = new LedgerException("Recover Pending Transfers",
+                                "Refund Failed For " + transactionId + ": " + e.getReason());
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return refunded;
+    }
+
+    /**
+     * Check whether the debit leg of a transfer has been followed by its credit or refund leg
+     * @param debit
+     * @param payerShard
+     * @return boolean
+     */
+    private boolean isSettled(Transaction debit, Ledger payerShard) {
+        //Either id may have been taken by an unrelated transaction of a shard
+        String transactionId = debit.getTransactionId();
+        for (Ledger shard : shards) {
+            if (isBridgeLeg(shard.getTransaction(transactionId + CREDIT_SUFFIX), debit)) {
+                return true;
+            }
+        }
+        Transaction refund = payerShard.getTransaction(transactionId + REFUND_SUFFIX);
+        return isBridgeLeg(refund, debit) && debit.getPayer().getAddress().equals(refund.getReceiver().getAddress());
+    }
+
+    private static boolean isBridgeLeg(Transaction leg, Transaction debit) {
+        return leg != null
+                && BRIDGE_ADDRESS.equals(leg.getPayer().getAddress())
+                && debit.getAmount().equals(leg.getAmount());
+    }
+
+    private static Account bridgeOf(Ledger shard) {
+        return shard.getUncommittedBlock().getAccount(BRIDGE_ADDRESS);
+    }
+
+    /**
+     * Get Account balance by address from the shard holding the account
+     * @param address
+     * @return Integer representing balance of the Account
+     * @throws LedgerException
+     */
+    public Integer getAccountBalance(String address) throws LedgerException {
+        return shardOf(address).getAccountBalance(address);
+    }
+
+    /**
+     * Get the full Account balance by address from the shard holding the account
+     * @param address
+     * @return Long representing balance of the Account
+     * @throws LedgerException
+     */
+    public Long getLongAccountBalance(String address) throws LedgerException {
+        return shardOf(address).getLongAccountBalance(address);
+    }
+
+    /**
+     * Get committed Account balances of all shards. Bridge accounts and the master
+     * accounts of shards other than the one holding the master account are left out.
+     * @return Map representing Accounts and balances
+     */
+    public Map<String,Integer> getAccountBalances() {
+        Map<String,Integer> balances = new HashMap<>();
+        for (int i = 0; i < shards.length; i++) {
+            Map<String,Integer> shardBalances = shards[i].getAccountBalances();
+            if (shardBalances == null) {
+                continue;
+            }
+            for (Map.Entry<String,Integer> entry : shardBalances.entrySet()) {
+                if (getShardIndex(entry.getKey()) == i && !BRIDGE_ADDRESS.equals(entry.getKey())) {
+                    balances.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Get Transaction by id. A cross-shard transfer is found as its debit leg.
+     * @param transactionId
+     * @return Transaction or Null
+     */
+    public Transaction getTransaction(String transactionId) {
+        for (Ledger shard : shards) {
+            Transaction transaction = shard.getTransaction(transactionId);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get total number of Blocks committed by all shards
+     * @return int
+     */
+    public int getNumberOfBlocks() {
+        int blocks = 0;
+        for (Ledger shard : shards) {
+            blocks += shard.getNumberOfBlocks();
+        }
+        return blocks;
+    }
+
+    /**
+     * Wait until every shard has committed the blocks handed to its sealer
+     * @throws LedgerException
+     */
+    public void awaitSealing() throws LedgerException {
+        for (Ledger shard : shards) {
+            shard.awaitSealing();
+        }
+    }
+
+    /**
+     * Method for validating every shard that has committed a block. Settlement legs never
+     * move funds between shards, so the balance check of each shard also covers the supply
+     * of the whole ledger. The working bridge balances of all shards must net to the amounts
+     * held by the transfers that have been debited but not yet settled.
+     * @throws LedgerException naming the first shard that fails
+     */
+    public void validate() throws LedgerException {
+        if (getNumberOfBlocks() == 0) {
+            throw new LedgerException("Validate", "No Block Has Been Committed");
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i].getNumberOfBlocks() == 0) {
+                continue;
+            }
+            try {
+                shards[i].validate();
+            } catch (LedgerException e) {
+                throw new LedgerException("Validate", "Shard " + i + ": " + e.getReason());
+            }
+        }
+
+        //Hold off the settlement legs so the bridges and unsettled amounts are read together
+        settlementLock.writeLock().lock();
+        try {
+            long bridgeBalance = 0;
+            for (Ledger shard : shards) {
+                bridgeBalance += bridgeOf(shard).getLongBalance();
+            }
+            for (long amount : unsettled.values()) {
+                bridgeBalance -= amount;
+            }
+            if (bridgeBalance != 0) {
+                throw new LedgerException("Validate", "Bridge Balances Do Not Net To Zero");
+            }
+        } finally {
+            settlementLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Helper method resetting the state of every shard
+     */
+    public void reset() {
+        for (Ledger shard : shards) {
+            shard.reset();
+        }
+        transactionIds.clear();
+        unsettled.clear();
+        createBridges();
+    }
+
+    /**
+     * Release every shard
+     * @throws LedgerException
+     */
+    @Override
+    public void close() throws LedgerException {
+        LedgerException failure = null;
+        for (Ledger shard : shards) {
+            try {
+                shard.close();
+            } catch (LedgerException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.se300.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * SnapshotStore class implementation writing account-state snapshots of the ledger to a
+ * directory. Snapshots are written on a background thread to a temporary file that is
+ * renamed into place once complete, and only the newest snapshots up to the retention
+ * count are kept. Each file ends with a CRC32 of its contents, so a damaged snapshot is
+ * skipped in favour of the next newest one. The ids of committed transactions are not
+ * repeated in every snapshot: each snapshot appends the ids committed since the previous
+ * one to a shared id file and records the length of that file.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class SnapshotStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x4c534e34;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TRANSACTION_IDS_FILE = "transaction-ids";
+
+    private final Path directory;
+    private final int retention;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile IOException writeFailure;
+    // Ids handed to a write that failed, carried over to the next write, guarded by this
+    private final List<String> unwrittenTransactionIds = new ArrayList<>();
+
+    /**
+     * Open the snapshot directory, creating it if needed
+     * @param directory
+     * @param retention number of snapshots to keep
+     * @throws IOException
+     */
+    public SnapshotStore(Path directory, int retention) throws IOException {
+        if (retention < 1) {
+            throw new IllegalArgumentException("Snapshot Retention Must Be Positive");
+        }
+        this.directory = directory;
+        this.retention = retention;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Getter method for the snapshot directory
+     * @return
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Getter method for the number of snapshots kept
+     * @return
+     */
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * Write a snapshot on the background writer. The supplier is called on the writer
+     * thread, so it must only read state that no longer changes.
+     * @param snapshot
+     */
+    public void writeAsync(Supplier<Snapshot> snapshot) {
+        writer.execute(() -> {
+            try {
+                write(snapshot.get());
+            } catch (IOException | RuntimeException e) {
+                writeFailure = e instanceof IOException ioException ? ioException : new IOException(e);
+            }
+        });
+    }
+
+    /**
+     * Wait until every snapshot handed to the writer has been written
+     * @throws IOException if a snapshot could not be written
+     */
+    public void awaitWrites() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted While Waiting For Snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+
+        IOException failure = writeFailure;
+        if (failure != null) {
+            writeFailure = null;
+            throw failure;
+        }
+    }
+
+    /**
+     * Write a snapshot and prune snapshots beyond the retention count. The snapshot's
+     * transaction ids are appended to the id file first.
+     * @param snapshot
+     * @throws IOException
+     */
+    public synchronized void write(Snapshot snapshot) throws IOException {
+        long transactionIdsLength = appendTransactionIds(snapshot.getTransactionIds());
+
+        Path target = directory.resolve(String.format("%s%010d%s", SNAPSHOT_PREFIX,
+                snapshot.getBlockNumber(), SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream file = Channels.newOutputStream(channel);
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(file, crc), 1 << 16));
+            output.writeInt(MAGIC);
+            output.writeInt(snapshot.getBlockNumber());
+            writeString(output, snapshot.getPreviousHash());
+            writeString(output, snapshot.getHash());
+            output.writeInt(snapshot.getMaxTransactions());
+            output.writeBoolean(snapshot.isSealedByAge());
+            output.writeByte(snapshot.getLeafFormat().getVersion());
+            output.writeInt(snapshot.getFees());
+            output.writeLong(snapshot.getLogPosition());
+            output.writeLong(transactionIdsLength);
+
+            output.writeInt(snapshot.getAccounts().size());
+            for (Map.Entry<String, Account> entry : snapshot.getAccounts().entrySet()) {
+                writeString(output, entry.getKey());
+                output.writeLong(entry.getValue().getLongBalance());
+            }
+
+            output.writeInt(snapshot.getUncommittedMaxTransactions());
+            output.writeInt(snapshot.getUncommittedAccounts().size());
+            for (String address : snapshot.getUncommittedAccounts()) {
+                writeString(output, address);
+            }
+            output.writeInt(snapshot.getUncommittedTransactions().size());
+            for (Transaction transaction : snapshot.getUncommittedTransactions()) {
+                byte[] encoded = TransactionCodec.encode(transaction);
+                output.writeInt(encoded.length);
+                output.write(encoded);
+            }
+            output.flush();
+
+            // Checksum covers everything before it and is written past the checked stream
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        prune();
+    }
+
+    /**
+     * Load the newest snapshot that passes its checksum
+     * @return Snapshot or Null when there is no valid snapshot
+     * @throws IOException
+     */
+    public Snapshot loadLatest() throws IOException {
+        for (Path file : list()) {
+            Snapshot snapshot = read(file);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the ids of every transaction committed up to the given loaded snapshot.
+     * Ids appended by newer snapshots are cut off, since the chain continues from this one.
+     * @param snapshot
+     * @return Set of transaction ids
+     * @throws IOException if the id file is shorter than recorded or fails its checksum
+     */
+    public synchronized Set<String> readTransactionIds(Snapshot snapshot) throws IOException {
+        Set<String> ids = new HashSet<>();
+        long length = snapshot.getTransactionIdsLength();
+        Path file = directory.resolve(TRANSACTION_IDS_FILE);
+        unwrittenTransactionIds.clear();
+        if (length == 0) {
+            Files.deleteIfExists(file);
+            return ids;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < length) {
+                throw new IOException("Transaction Id File Is Shorter Than Recorded");
+            }
+            CRC32 crc = new CRC32();
+            DataInputStream input = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), 1 << 16), crc));
+            long read = 0;
+            while (read < length) {
+                crc.reset();
+                int count = input.readInt();
+                read += 2 * Integer.BYTES;
+                for (int i = 0; i < count; i++) {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    ids.add(TransactionCodec.decodeString(bytes, 0, bytes.length));
+                    read += Integer.BYTES + bytes.length;
+                }
+                int expected = (int) crc.getValue();
+                if (input.readInt() != expected) {
+                    throw new IOException("Transaction Id File Is Corrupt");
+                }
+            }
+            if (read != length) {
+                throw new IOException("Transaction Id File Is Corrupt");
+            }
+            if (channel.size() > length) {
+                channel.truncate(length);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Transaction Id File Is Corrupt", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Remove every snapshot and the id file
+     * @throws IOException
+     */
+    public void clear() throws IOException {
+        awaitQuietly();
+        synchronized (this) {
+            unwrittenTransactionIds.clear();
+            for (Path file : list()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory.resolve(TRANSACTION_IDS_FILE));
+        }
+    }
+
+    /**
+     * Finish pending writes and stop the writer
+     */
+    @Override
+    public void close() {
+        awaitQuietly();
+        writer.shutdown();
+    }
+
+    private void awaitQuietly() {
+        try {
+            awaitWrites();
+        } catch (IOException e) {
+            // A failed write is of no interest once the store is cleared or closed
+        }
+    }
+
+    /**
+     * Get snapshot files, newest first
+     */
+    private List<Path> list() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Collections.reverseOrder());
+        return files;
+    }
+
+    /**
+     * Append the given ids, with those of earlier failed writes, to the id file as one
+     * checksummed chunk
+     * @return length of the id file
+     */
+    private long appendTransactionIds(List<String> ids) throws IOException {
+        unwrittenTransactionIds.addAll(ids);
+        try (FileChannel channel = FileChannel.open(directory.resolve(TRANSACTION_IDS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long length = channel.size();
+            if (unwrittenTransactionIds.isEmpty()) {
+                return length;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            CRC32 crc = new CRC32();
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+            output.writeInt(unwrittenTransactionIds.size());
+            for (String id : unwrittenTransactionIds) {
+                writeString(output, id);
+            }
+            new DataOutputStream(bytes).writeInt((int) crc.getValue());
+
+            ByteBuffer chunk = ByteBuffer.wrap(bytes.toByteArray());
+            try {
+                channel.position(length);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                channel.force(true);
+            } catch (IOException e) {
+                //Leave no partial chunk behind; the ids are retried with the next write
+                try {
+                    channel.truncate(length);
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                throw e;
+            }
+            unwrittenTransactionIds.clear();
+            return length + bytes.size();
+        }
+    }
+
+    private void prune() throws IOException {
+        List<Path> files = list();
+        for (int i = retention; i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static Snapshot read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 2 * Integer.BYTES) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if ((int) crc.getValue() != buffer.getInt(bytes.length - Integer.BYTES)) {
+            return null;
+        }
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+
+        try {
+            int blockNumber = buffer.getInt();
+            String previousHash = TransactionCodec.getString(buffer);
+            String hash = TransactionCodec.getString(buffer);
+            int maxTransactions = buffer.getInt();
+            boolean sealedByAge = buffer.get() == 1;
+            LeafFormat leafFormat = LeafFormat.fromVersion(buffer.get());
+            int fees = buffer.getInt();
+            long logPosition = buffer.getLong();
+            long transactionIdsLength = buffer.getLong();
+
+            int accountCount = buffer.getInt();
+            //Accounts are written in account number order, which the restored ledger keeps
+            Map<String, Account> accounts = new LinkedHashMap<>(Math.max(16, accountCount * 2));
+            for (int i = 0; i < accountCount; i++) {
+                String address = TransactionCodec.getString(buffer);
+                accounts.put(address, new Account(address, buffer.getLong()));
+            }
+
+            int uncommittedMaxTransactions = buffer.getInt();
+            int uncommittedAccountCount = buffer.getInt();
+            List<String> uncommittedAccounts = new ArrayList<>(uncommittedAccountCount);
+            for (int i = 0; i < uncommittedAccountCount; i++) {
+                uncommittedAccounts.add(TransactionCodec.getString(buffer));
+            }
+            int transactionCount = buffer.getInt();
+            List<Transaction> transactions = new ArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; i++) {
+                int length = buffer.getInt();
+                ByteBuffer encoded = buffer.slice(buffer.position(), length);
+                transactions.add(TransactionCodec.decode(encoded));
+                buffer.position(buffer.position() + length);
+            }
+
+            return new Snapshot(blockNumber, previousHash, hash, maxTransactions, sealedByAge, leafFormat,
+                    fees, logPosition, accounts, List.of(), transactionIdsLength, uncommittedMaxTransactions,
+                    uncommittedAccounts, transactions);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write length-prefixed UTF-8 string in the layout read by TransactionCodec
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = TransactionCodec.encodeString(value == null ? "" : value);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Account state of the latest committed block together with the contents of the
+     * block that was being built when the snapshot was taken
+     */
+    public static final class Snapshot {
+
+        private final int blockNumber;
+        private final String previousHash;
+        private final String hash;
+        private final int maxTransactions;
+        private final boolean sealedByAge;
+        private final LeafFormat leafFormat;
+        private final int fees;
+        private final long logPosition;
+        private final Map<String, Account> accounts;
+        private final List<String> transactionIds;
+        private final long transactionIdsLength;
+        private final int uncommittedMaxTransactions;
+        private final List<String> uncommittedAccounts;
+        private final List<Transaction> uncommittedTransactions;
+
+        /**
+         * Snapshot Constructor
+         * @param blockNumber number of the latest committed block
+         * @param previousHash
+         * @param hash
+         * @param maxTransactions
+         * @param sealedByAge
+         * @param leafFormat
+         * @param fees total fees collected up to and including the block
+         * @param logPosition length of the write-ahead log when the block was sealed, or -1
+         * @param accounts accounts of the block, which must no longer change
+         * @param transactionIds ids of the transactions committed after the previous snapshot
+         *                       up to and including the block
+         * @param uncommittedMaxTransactions
+         * @param uncommittedAccounts accounts created in the uncommitted block
+         * @param uncommittedTransactions transactions of the uncommitted block
+         */
+        public Snapshot(int blockNumber, String previousHash, String hash, int maxTransactions,
+                        boolean sealedByAge, LeafFormat leafFormat, int fees, long logPosition,
+                        Map<String, Account> accounts, List<String> transactionIds, int uncommittedMaxTransactions,
+                        List<String> uncommittedAccounts, List<Transaction> uncommittedTransactions) {
+            this(blockNumber, previousHash, hash, maxTransactions, sealedByAge, leafFormat, fees, logPosition,
+                    accounts, transactionIds, -1, uncommittedMaxTransactions, uncommittedAccounts,
+                    uncommittedTransactions);
+        }
+
+        private Snapshot(int blockNumber, String previousHash, String hash, int maxTransactions,
+                         boolean sealedByAge, LeafFormat leafFormat, int fees, long logPosition,
+                         Map<String, Account> accounts, List<String> transactionIds, long transactionIdsLength,
+                         int uncommittedMaxTransactions, List<String> uncommittedAccounts,
+                         List<Transaction> uncommittedTransactions) {
+            this.blockNumber = blockNumber;
+            this.previousHash = previousHash;
+            this.hash = hash;
+            this.maxTransactions = maxTransactions;
+            this.sealedByAge = sealedByAge;
+            this.leafFormat = leafFormat;
+            this.fees = fees;
+            this.logPosition = logPosition;
+            this.accounts = accounts;
+            this.transactionIds = transactionIds;
+            this.transactionIdsLength = transactionIdsLength;
+            this.uncommittedMaxTransactions = uncommittedMaxTransactions;
+            this.uncommittedAccounts = uncommittedAccounts;
+            this.uncommittedTransactions = uncommittedTransactions;
+        }
+
+        public int getBlockNumber() {
+            return blockNumber;
+        }
+
+        public String getPreviousHash() {
+            return previousHash;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public int getMaxTransactions() {
+            return maxTransactions;
+        }
+
+        public boolean isSealedByAge() {
+            return sealedByAge;
+        }
+
+        public LeafFormat getLeafFormat() {
+            return leafFormat;
+        }
+
+        public int getFees() {
+            return fees;
+        }
+
+        public long getLogPosition() {
+            return logPosition;
+        }
+
+        public Map<String, Account> getAccounts() {
+            return accounts;
+        }
+
+        /**
+         * Getter method for the ids committed after the previous snapshot. Empty for a
+         * loaded snapshot, whose ids are read with readTransactionIds.
+         * @return
+         */
+        public List<String> getTransactionIds() {
+            return transactionIds;
+        }
+
+        /**
+         * Getter method for the length of the id file covering this snapshot
+         * @return length in bytes, or -1 before the snapshot is written
+         */
+        public long getTransactionIdsLength() {
+            return transactionIdsLength;
+        }
+
+        public int getUncommittedMaxTransactions() {
+            return uncommittedMaxTransactions;
+        }
+
+        public List<String> getUncommittedAccounts() {
+            return uncommittedAccounts;
+        }
+
+        public List<Transaction> getUncommittedTransactions() {
+            return uncommittedTransactions;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.se300.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StringMerkleEngine class implementation computing Block hashes with the original MerkleTrees.
+ * Only the legacy string leaf format is supported.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class StringMerkleEngine implements MerkleEngine {
+
+    /**
+     * Compute Merkle root by hashing the string form of every leaf
+     * @param seed
+     * @param transactions
+     * @param leafFormat
+     * @return String representing hex encoded Merkle root
+     */
+    @Override
+    public String computeRoot(String seed, List<Transaction> transactions, LeafFormat leafFormat) {
+
+        if (leafFormat != LeafFormat.LEGACY_STRING) {
+            throw new IllegalArgumentException("Unsupported Leaf Format: " + leafFormat);
+        }
+
+        List<String> tempTxList = new ArrayList<>();
+        tempTxList.add(seed);
+
+        //Loop through the list of transaction to get the hash
+        for (Transaction tempTx : transactions) {
+            tempTxList.add(tempTx.toString());
+        }
+
+        MerkleTrees merkleTrees = new MerkleTrees(tempTxList);
+        merkleTrees.merkle_tree();
+        return merkleTrees.getRoot();
+    }
+}
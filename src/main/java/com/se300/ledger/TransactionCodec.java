@@ -0,0 +1,211 @@
+package com.se300.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TransactionCodec class implementation providing the canonical binary encoding of a Transaction.
+ * Layout (big endian): version byte, length-prefixed UTF-8 transaction id, 8 byte amount,
+ * 8 byte fee, length-prefixed UTF-8 note, length-prefixed UTF-8 payer and receiver addresses.
+ * Every variable field carries a 4 byte length, so no two transactions share an encoding.
+ * An unpaired surrogate, which UTF-8 cannot hold, is written as the three bytes of its
+ * code unit, so text is never replaced on the way in and decodes back unchanged.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public final class TransactionCodec {
+
+    private TransactionCodec() {
+    }
+
+    /**
+     * Get number of bytes needed to encode the given transaction
+     * @param transaction
+     * @return int representing encoded length
+     */
+    public static int encodedLength(Transaction transaction) {
+        return 1 + 2 * Long.BYTES
+                + stringLength(transaction.getTransactionId())
+                + stringLength(transaction.getNote())
+                + stringLength(transaction.getPayer().getAddress())
+                + stringLength(transaction.getReceiver().getAddress());
+    }
+
+    /**
+     * Write the canonical encoding of the given transaction into the buffer
+     * @param transaction
+     * @param buffer
+     */
+    public static void encode(Transaction transaction, ByteBuffer buffer) {
+        buffer.put((byte) LeafFormat.BINARY_V1.getVersion());
+        putString(buffer, transaction.getTransactionId());
+        buffer.putLong(transaction.getAmount());
+        buffer.putLong(transaction.getFee());
+        putString(buffer, transaction.getNote());
+        putString(buffer, transaction.getPayer().getAddress());
+        putString(buffer, transaction.getReceiver().getAddress());
+    }
+
+    /**
+     * Encode the given transaction into a new array
+     * @param transaction
+     * @return byte array holding the canonical encoding
+     */
+    public static byte[] encode(Transaction transaction) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedLength(transaction));
+        encode(transaction, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Read a transaction written by encode. Payer and receiver are returned as
+     * address-only accounts that the caller resolves against the ledger.
+     * @param buffer
+     * @return Transaction
+     */
+    public static Transaction decode(ByteBuffer buffer) {
+        int version = buffer.get();
+        if (version != LeafFormat.BINARY_V1.getVersion()) {
+            throw new IllegalArgumentException("Unknown Transaction Encoding Version: " + version);
+        }
+        String transactionId = getString(buffer);
+        int amount = getInt(buffer, "Amount");
+        int fee = getInt(buffer, "Fee");
+        String note = getString(buffer);
+        Account payer = new Account(getString(buffer), 0);
+        Account receiver = new Account(getString(buffer), 0);
+        return new Transaction(transactionId, amount, fee, note, payer, receiver);
+    }
+
+    /**
+     * Read an 8 byte field that must fit a Transaction int
+     */
+    static int getInt(ByteBuffer buffer, String field) {
+        long value = buffer.getLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Transaction " + field + " Is Out of Int Range: " + value);
+        }
+        return (int) value;
+    }
+
+    static int stringLength(String value) {
+        return Integer.BYTES + utf8Length(value);
+    }
+
+    /**
+     * Count UTF-8 bytes of the given string without encoding it. An unpaired surrogate
+     * takes the three bytes of its code unit.
+     */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Read length-prefixed UTF-8 string
+     */
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value;
+        if (buffer.hasArray()) {
+            value = decodeString(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = decodeString(bytes, 0, length);
+        }
+        return value;
+    }
+
+    /**
+     * Decode UTF-8 written by putString, turning the three bytes of an unpaired surrogate
+     * back into its code unit. Well-formed UTF-8 never holds such bytes, so text without
+     * unpaired surrogates is decoded as String does.
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return String
+     */
+    static String decodeString(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        StringBuilder value = null;
+        int start = offset;
+        for (int i = offset; i + 2 < end; i++) {
+            //0xED is always a lead byte; followed by 0xA0 to 0xBF it encodes a surrogate
+            if (bytes[i] == (byte) 0xED && (bytes[i + 1] & 0xE0) == 0xA0) {
+                if (value == null) {
+                    value = new StringBuilder(length);
+                }
+                value.append(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                value.append((char) (0xD000 | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F)));
+                i += 2;
+                start = i + 1;
+            }
+        }
+        if (value == null) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        return value.append(new String(bytes, start, end - start, StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Encode the given string as putString does, without the length prefix
+     * @param value
+     * @return byte array holding the UTF-8 encoding
+     */
+    static byte[] encodeString(String value) {
+        ByteBuffer buffer = ByteBuffer.allocate(utf8Length(value));
+        putUtf8(buffer, value);
+        return buffer.array();
+    }
+
+    /**
+     * Write length-prefixed UTF-8 string straight into the buffer. An unpaired surrogate
+     * is written as the three bytes of its code unit, as in WTF-8, so that every string has
+     * its own encoding and getString reads it back unchanged.
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        buffer.putInt(utf8Length(value));
+        putUtf8(buffer, value);
+    }
+
+    private static void putUtf8(ByteBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.se300.ledger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TransactionPage class implementation representing one page of the Transactions an account
+ * paid or received, in chain order. A page may end inside a block, so the next page starts
+ * at the block number and index in the block of the first Transaction not returned.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final int nextBlock;
+    private final int nextIndex;
+
+    /**
+     * TransactionPage Constructor
+     * @param transactions
+     * @param nextBlock block to start the next page from, or 0 when there are no more
+     * @param nextIndex index in the next block to start the next page from
+     */
+    public TransactionPage(List<Transaction> transactions, int nextBlock, int nextIndex) {
+        this.transactions = Collections.unmodifiableList(new ArrayList<>(transactions));
+        this.nextBlock = nextBlock;
+        this.nextIndex = nextIndex;
+    }
+
+    /**
+     * Getter method for the Transactions of the page
+     * @return
+     */
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Getter method for the block to start the next page from
+     * @return block number, or 0 when there are no more Transactions
+     */
+    public int getNextBlock() {
+        return nextBlock;
+    }
+
+    /**
+     * Getter method for the index in the next block to start the next page from
+     * @return index of the Transaction in the block
+     */
+    public int getNextIndex() {
+        return nextIndex;
+    }
+
+    /**
+     * Check whether more Transactions follow the page
+     * @return
+     */
+    public boolean hasMore() {
+        return nextBlock != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Transactions: " + transactions.size() + ", Next Block: " + nextBlock + ", Next Index: " + nextIndex;
+    }
+}
@@ -0,0 +1,53 @@
+package com.se300.ledger;
+
+/**
+ * TransactionResult class implementation representing the outcome of one transaction in a batch
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class TransactionResult {
+
+    private final String transactionId;
+    private final String reason;
+
+    /**
+     * TransactionResult Constructor
+     * @param transactionId
+     * @param reason rejection reason or null when the transaction was accepted
+     */
+    public TransactionResult(String transactionId, String reason) {
+        this.transactionId = transactionId;
+        this.reason = reason;
+    }
+
+    /**
+     * Getter method for transaction id
+     * @return
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Getter method for rejection reason
+     * @return reason or null when the transaction was accepted
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Check whether the transaction was accepted
+     * @return
+     */
+    public boolean isAccepted() {
+        return reason == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction Id: " + transactionId + ", " + (isAccepted() ? "Accepted" : "Rejected: " + reason);
+    }
+}
@@ -0,0 +1,86 @@
+package com.se300.ledger;
+
+/**
+ * VerificationResult class implementation representing the outcome of a deep verification
+ * of the Blockchain
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class VerificationResult {
+
+    private final int blocksVerified;
+    private final int firstInvalidBlock;
+    private final String reason;
+    private final long elapsedNanos;
+
+    /**
+     * VerificationResult Constructor
+     * @param blocksVerified number of blocks checked
+     * @param firstInvalidBlock lowest inconsistent block number, or 0 when every block is consistent
+     * @param reason why the first inconsistent block failed, or null
+     * @param elapsedNanos
+     */
+    public VerificationResult(int blocksVerified, int firstInvalidBlock, String reason, long elapsedNanos) {
+        this.blocksVerified = blocksVerified;
+        this.firstInvalidBlock = firstInvalidBlock;
+        this.reason = reason;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Getter method for the number of blocks checked
+     * @return
+     */
+    public int getBlocksVerified() {
+        return blocksVerified;
+    }
+
+    /**
+     * Getter method for the lowest inconsistent block number
+     * @return block number, or 0 when every block is consistent
+     */
+    public int getFirstInvalidBlock() {
+        return firstInvalidBlock;
+    }
+
+    /**
+     * Getter method for the reason the first inconsistent block failed
+     * @return reason or null when every block is consistent
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Check whether every block is consistent
+     * @return
+     */
+    public boolean isValid() {
+        return firstInvalidBlock == 0;
+    }
+
+    /**
+     * Getter method for the time the verification took
+     * @return
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Get verification throughput
+     * @return double representing blocks checked per second
+     */
+    public double getBlocksPerSecond() {
+        return elapsedNanos == 0 ? 0 : blocksVerified * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Blocks Verified: " + blocksVerified
+                + ", " + (isValid() ? "Valid" : "Invalid Block: " + firstInvalidBlock + " (" + reason + ")")
+                + ", Blocks Per Second: " + String.format("%.1f", getBlocksPerSecond());
+    }
+}
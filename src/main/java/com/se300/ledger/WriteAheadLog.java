@@ -0,0 +1,446 @@
+package com.se300.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog class implementation recording created accounts, accepted transactions and
+ * sealed block headers in an append-only file. Each record is framed as payload length,
+ * record type, payload and a CRC32 of type and payload, so a torn tail left by a crash is
+ * detected and cut off when the log is read back.
+ *
+ * @author  Sergey L. Sundukovskiy
+ * @version 1.0
+ * @since   2025-09-25
+ */
+public class WriteAheadLog implements Closeable {
+
+    static final byte ACCOUNT_RECORD = 1;
+    static final byte TRANSACTION_RECORD = 2;
+    static final byte BLOCK_RECORD = 3;
+
+    private static final long ASYNC_FLUSH_MILLIS = 50;
+
+    private final Path path;
+    private final Durability durability;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    // Sequence of the last record handed to the file system, guarded by this
+    private long writtenSequence;
+
+    // Group commit state, guarded by syncLock
+    private final Object syncLock = new Object();
+    private long syncedSequence;
+    private boolean syncing;
+
+    private final ScheduledExecutorService flusher;
+
+    // First failure of the background flush, reported by every later append, sync and close
+    private volatile IOException flushFailure;
+
+    /**
+     * Open the log for appending, creating the file if needed
+     * @param path
+     * @param durability
+     * @throws IOException
+     */
+    public WriteAheadLog(Path path, Durability durability) throws IOException {
+        this.path = path;
+        this.durability = durability;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+
+        if (durability == Durability.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, ASYNC_FLUSH_MILLIS, ASYNC_FLUSH_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Getter method for the log file
+     * @return
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Getter method for the durability mode
+     * @return
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Append record of a created account
+     * @param address
+     * @throws IOException
+     */
+    public synchronized void appendAccount(String address) throws IOException {
+        ByteBuffer payload = begin(TransactionCodec.stringLength(address));
+        TransactionCodec.putString(payload, address);
+        finish(ACCOUNT_RECORD);
+    }
+
+    /**
+     * Append record of an accepted transaction
+     * @param transaction
+     * @throws IOException
+     */
+    public synchronized void appendTransaction(Transaction transaction) throws IOException {
+        ByteBuffer payload = begin(TransactionCodec.encodedLength(transaction));
+        TransactionCodec.encode(transaction, payload);
+        finish(TRANSACTION_RECORD);
+    }
+
+    /**
+     * Append header of a sealed block
+     * @param block
+     * @throws IOException
+     */
+    public synchronized void appendBlock(Block block) throws IOException {
+        String previousHash = block.getPreviousHash() == null ? "" : block.getPreviousHash();
+        ByteBuffer payload = begin(3 * Integer.BYTES + 2
+                + TransactionCodec.stringLength(previousHash) + TransactionCodec.stringLength(block.getHash()));
+        payload.putInt(block.getBlockNumber());
+        payload.putInt(block.getTransactionList().size());
+        payload.putInt(block.getMaxTransactions());
+        payload.put((byte) (block.isSealedByAge() ? 1 : 0));
+        payload.put((byte) block.getLeafFormat().getVersion());
+        TransactionCodec.putString(payload, previousHash);
+        TransactionCodec.putString(payload, block.getHash());
+        finish(BLOCK_RECORD);
+    }
+
+    /**
+     * Reserve room for the frame header and payload in the shared buffer
+     */
+    private ByteBuffer begin(int payloadLength) throws IOException {
+        checkFlushFailure();
+        int frameLength = Integer.BYTES + 1 + payloadLength + Integer.BYTES;
+        if (buffer.capacity() < frameLength) {
+            buffer = ByteBuffer.allocate(frameLength);
+        }
+        buffer.clear();
+        buffer.putInt(payloadLength);
+        buffer.put((byte) 0);
+        return buffer;
+    }
+
+    /**
+     * Fill in type and checksum, then hand the frame to the file system
+     */
+    private void finish(byte type) throws IOException {
+        buffer.put(Integer.BYTES, type);
+        crc.reset();
+        crc.update(buffer.array(), Integer.BYTES, buffer.position() - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        writtenSequence++;
+
+        if (durability == Durability.SYNC) {
+            channel.force(false);
+            synchronized (syncLock) {
+                syncedSequence = writtenSequence;
+            }
+        }
+    }
+
+    /**
+     * Wait until every record appended before the call is on disk. In group mode one
+     * caller forces the file on behalf of everyone waiting; the others block until a
+     * force that covers their records has completed.
+     * @throws IOException
+     */
+    public void sync() throws IOException {
+        checkFlushFailure();
+        if (durability != Durability.GROUP) {
+            return;
+        }
+
+        long target;
+        synchronized (this) {
+            target = writtenSequence;
+        }
+
+        synchronized (syncLock) {
+            while (syncing && syncedSequence < target) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted While Waiting For Group Commit", e);
+                }
+            }
+            if (syncedSequence >= target) {
+                return;
+            }
+            syncing = true;
+        }
+
+        // Leader: one force covers every record written up to this point
+        long covered;
+        synchronized (this) {
+            covered = writtenSequence;
+        }
+        boolean forced = false;
+        try {
+            channel.force(false);
+            forced = true;
+        } finally {
+            synchronized (syncLock) {
+                syncing = false;
+                if (forced && covered > syncedSequence) {
+                    syncedSequence = covered;
+                }
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Force the file from the background flusher, recording a failure for the writers
+     */
+    private void flushQuietly() {
+        if (flushFailure != null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            flushFailure = e;
+        }
+    }
+
+    /**
+     * Report a failed background flush. Records written before the failure may not be on
+     * disk, so the log stays failed rather than acknowledging later records.
+     * @throws IOException
+     */
+    private void checkFlushFailure() throws IOException {
+        IOException failure = flushFailure;
+        if (failure != null) {
+            throw new IOException("Asynchronous Flush Failed", failure);
+        }
+    }
+
+    /**
+     * Discard every record in the log
+     * @throws IOException
+     */
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    /**
+     * Get the length of the records handed to the file system so far
+     * @return long representing the log position of the next record
+     * @throws IOException
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Read every intact record in order. A torn or corrupt tail is cut off so that
+     * new records follow the last intact one. If the visitor rejects a record the file
+     * is left as it is.
+     * @param visitor
+     * @throws IOException
+     */
+    public void read(Visitor visitor) throws IOException, LedgerException {
+        read(visitor, 0);
+    }
+
+    /**
+     * Read every intact record from the given position on, which must be a record
+     * boundary such as a size returned earlier. The tail is handled as by read.
+     * @param visitor
+     * @param position
+     * @throws IOException
+     */
+    public synchronized void read(Visitor visitor, long position) throws IOException, LedgerException {
+        if (position < 0 || position > channel.size()) {
+            throw new IOException("Log Position Is Out of Range: " + position);
+        }
+        long validLength = position;
+        CRC32 checksum = new CRC32();
+
+        channel.position(position);
+        InputStream channelStream = Channels.newInputStream(channel);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(channelStream, 1 << 16));
+        try {
+            while (true) {
+                int payloadLength;
+                byte type;
+                byte[] payload;
+                int expected;
+                try {
+                    payloadLength = input.readInt();
+                    if (payloadLength < 0 || validLength + payloadLength > channel.size()) {
+                        break;
+                    }
+                    type = input.readByte();
+                    payload = new byte[payloadLength];
+                    input.readFully(payload);
+                    expected = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                checksum.reset();
+                checksum.update(type);
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+
+                visit(visitor, type, ByteBuffer.wrap(payload));
+                validLength += Integer.BYTES + 1 + payloadLength + Integer.BYTES;
+            }
+        } catch (IOException | LedgerException | RuntimeException e) {
+            //Intact records the ledger cannot apply are not a torn tail
+            channel.position(channel.size());
+            throw e;
+        }
+
+        if (channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+    }
+
+    private static void visit(Visitor visitor, byte type, ByteBuffer payload) throws LedgerException {
+        switch (type) {
+            case ACCOUNT_RECORD -> visitor.account(TransactionCodec.getString(payload));
+            case TRANSACTION_RECORD -> visitor.transaction(TransactionCodec.decode(payload));
+            case BLOCK_RECORD -> {
+                int blockNumber = payload.getInt();
+                int transactionCount = payload.getInt();
+                int maxTransactions = payload.getInt();
+                boolean sealedByAge = payload.get() == 1;
+                LeafFormat leafFormat = LeafFormat.fromVersion(payload.get());
+                String previousHash = TransactionCodec.getString(payload);
+                String hash = TransactionCodec.getString(payload);
+                visitor.block(new BlockHeader(blockNumber, transactionCount, maxTransactions, sealedByAge,
+                        leafFormat, previousHash, hash));
+            }
+            default -> throw new LedgerException("Read Log", "Unknown Record Type: " + type);
+        }
+    }
+
+    /**
+     * Force outstanding records to disk and release the file
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (this) {
+            if (channel.isOpen()) {
+                try {
+                    channel.force(false);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+        checkFlushFailure();
+    }
+
+    /**
+     * Callback receiving log records in the order they were written
+     */
+    public interface Visitor {
+
+        void account(String address) throws LedgerException;
+
+        void transaction(Transaction transaction) throws LedgerException;
+
+        void block(BlockHeader header) throws LedgerException;
+    }
+
+    /**
+     * Sealed block header as stored in the log
+     */
+    public static final class BlockHeader {
+
+        private final int blockNumber;
+        private final int transactionCount;
+        private final int maxTransactions;
+        private final boolean sealedByAge;
+        private final LeafFormat leafFormat;
+        private final String previousHash;
+        private final String hash;
+
+        BlockHeader(int blockNumber, int transactionCount, int maxTransactions, boolean sealedByAge,
+                    LeafFormat leafFormat, String previousHash, String hash) {
+            this.blockNumber = blockNumber;
+            this.transactionCount = transactionCount;
+            this.maxTransactions = maxTransactions;
+            this.sealedByAge = sealedByAge;
+            this.leafFormat = leafFormat;
+            this.previousHash = previousHash;
+            this.hash = hash;
+        }
+
+        public int getBlockNumber() {
+            return blockNumber;
+        }
+
+        public int getTransactionCount() {
+            return transactionCount;
+        }
+
+        public int getMaxTransactions() {
+            return maxTransactions;
+        }
+
+        public boolean isSealedByAge() {
+            return sealedByAge;
+        }
+
+        public LeafFormat getLeafFormat() {
+            return leafFormat;
+        }
+
+        public String getPreviousHash() {
+            return previousHash;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+    }
+}
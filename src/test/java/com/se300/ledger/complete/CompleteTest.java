@@ -1,8 +1,26 @@
 package com.se300.ledger.complete;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -10,7 +28,9 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,6 +51,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.condition.EnabledOnOs;
 import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -50,11 +71,24 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.se300.ledger.Account;
+import com.se300.ledger.BalanceSnapshot;
+import com.se300.ledger.BinaryMerkleEngine;
 import com.se300.ledger.Block;
+import com.se300.ledger.BlockStore;
+import com.se300.ledger.Durability;
+import com.se300.ledger.LeafFormat;
 import com.se300.ledger.Ledger;
 import com.se300.ledger.LedgerException;
+import com.se300.ledger.MerkleEngine;
+import com.se300.ledger.MerkleProof;
 import com.se300.ledger.MerkleTrees;
+import com.se300.ledger.ShardedLedger;
+import com.se300.ledger.StringMerkleEngine;
 import com.se300.ledger.Transaction;
+import com.se300.ledger.TransactionCodec;
+import com.se300.ledger.TransactionPage;
+import com.se300.ledger.TransactionResult;
+import com.se300.ledger.VerificationResult;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class CompleteTest {
@@ -104,6 +138,39 @@ public class CompleteTest {
         System.out.println("Finished test #" + testCounter);
     }
 
+    /**
+     * Fixture helper paying count transactions of the given amount from master to the
+     * account, named prefix-1 to prefix-count. Creates the account if the ledger does not
+     * hold it yet.
+     * @param target
+     * @param address
+     * @param prefix
+     * @param count
+     * @param amount
+     * @return Account receiving the transactions
+     */
+    private static Account fundAccount(Ledger target, String address, String prefix, int count, int amount)
+            throws LedgerException {
+        Account account = target.getUncommittedBlock().getAccount(address);
+        if (account == null) {
+            account = target.createAccount(address);
+        }
+        Account master = target.getUncommittedBlock().getAccount("master");
+        for (int i = 1; i <= count; i++) {
+            target.processTransaction(new Transaction(prefix + "-" + i, amount, 10, prefix, master, account));
+        }
+        return account;
+    }
+
+    /**
+     * Check whether a live thread has the given name
+     * @param name
+     * @return boolean
+     */
+    private static boolean hasThread(String name) {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(thread -> thread.getName().equals(name));
+    }
+
 
     @ParameterizedTest
     @ValueSource(strings = {"account1", "account2", "account3", "alice", "bob"})
@@ -270,7 +337,7 @@ public class CompleteTest {
         assertEquals(5, block.getBlockNumber(), "Block number should be 5");
 
         // 2. assertNotNull with Merkle Tree
-        MerkleTrees merkleTree = new MerkleTrees(new java.util.ArrayList<>());
+        MerkleTrees merkleTree = new MerkleTrees(new ArrayList<>());
         assertNotNull(merkleTree, "Merkle tree should not be null");
 
         // 3. assertTrue
@@ -799,7 +866,7 @@ public class CompleteTest {
     @DisplayName("Test: MerkleTrees getSHA2HexValue coverage")
     void merkleSHA2Test() {
         // Test the MerkleTrees getSHA2HexValue method for edge cases
-        MerkleTrees merkleTree = new MerkleTrees(new java.util.ArrayList<>());
+        MerkleTrees merkleTree = new MerkleTrees(new ArrayList<>());
 
         // Test 5: Null input - should trigger exception handling and return empty string
         String hash5 = merkleTree.getSHA2HexValue(null);
@@ -897,6 +964,30 @@ public class CompleteTest {
             ledger.getBlock(-1);
         }, "getBlock(-1) should throw LedgerException");
         assertEquals("Block Does Not Exist", exceptionNegative.getReason(), "Non-existent negative block should throw appropriate exception");
+
+        // TEST 5: Accounts of a committed block are read-only and cannot change later blocks
+        for (int i = 11; i <= 20; i++) {
+            ledger.processTransaction(new Transaction(String.valueOf(i), 100, 15, "test", master, account1));
+        }
+        Account committed = ledger.getBlock(1).getAccount("account1");
+        assertEquals(1000, committed.getBalance());
+        assertThrows(UnsupportedOperationException.class, () -> committed.setBalance(5));
+        assertThrows(UnsupportedOperationException.class,
+                () -> ledger.getBlock(1).getAccountBalanceMap().put("account1", new Account("account1", 5)));
+        assertThrows(UnsupportedOperationException.class,
+                () -> ledger.getBlock(1).getAccountBalanceMap().remove("account1"));
+        assertEquals(1000, ledger.getBlock(1).getAccount("account1").getBalance());
+        assertEquals(2000, ledger.getBlock(2).getAccount("account1").getBalance());
+        assertEquals(2000, ledger.getAccountBalance("account1"));
+
+        // TEST 6: Accounts can be removed from a block that is still being built
+        Block standalone = new Block(1, "");
+        standalone.addAccount("removed", new Account("removed", 10));
+        standalone.addAccount("kept", new Account("kept", 20));
+        assertEquals(10, standalone.getAccountBalanceMap().remove("removed").getBalance());
+        assertNull(standalone.getAccount("removed"));
+        assertEquals(20, standalone.getAccount("kept").getBalance());
+        assertEquals(1, standalone.getAccountBalanceMap().size());
     }
 
     @Test
@@ -1053,8 +1144,11 @@ public class CompleteTest {
         when(mockOverflowTx.getTransactionId()).thenReturn("p3");
         when(mockOverflowTx.getPayer()).thenReturn(user1);
         when(mockOverflowTx.getReceiver()).thenReturn(master);
-        // Both conditions false: amount not < 0 AND amount not > Integer.MAX_VALUE
-        assertDoesNotThrow(() -> ledger.processTransaction(mockOverflowTx));
+        // Both conditions false: amount not < 0 AND amount not > Integer.MAX_VALUE,
+        // so the transaction passes the range check and fails only the funds check
+        LedgerException overflowException = assertThrows(LedgerException.class,
+                () -> ledger.processTransaction(mockOverflowTx));
+        assertEquals("Payer Does Not Have Required Funds", overflowException.getReason());
 
         // TEST 4: Fee too low
         Transaction lowFeeTx = new Transaction("p4", 100, 5, "bad", master, user1);
@@ -1120,7 +1214,7 @@ public class CompleteTest {
         // TEST 5: Tamper with transaction count in block 1
         Field transactionListField = Block.class.getDeclaredField("transactionList");
         transactionListField.setAccessible(true);
-        java.util.List<Transaction> txList = (java.util.List<Transaction>) transactionListField.get(block1);
+        List<Transaction> txList = (List<Transaction>) transactionListField.get(block1);
         Transaction removedTx = txList.remove(0);
 
         LedgerException txCountException = assertThrows(LedgerException.class, () -> {
@@ -1135,7 +1229,11 @@ public class CompleteTest {
         Block lastBlock = ledger.getBlock(2);
         Field accountMapField = Block.class.getDeclaredField("accountBalanceMap");
         accountMapField.setAccessible(true);
-        java.util.Map<String, Account> accountMap = (java.util.Map<String, Account>) accountMapField.get(lastBlock);
+        Map<String, Account> accountMap = (Map<String, Account>) accountMapField.get(lastBlock);
+        // Accounts of a committed block are read-only, so reopen its account state first
+        Field frozenField = accountMap.getClass().getDeclaredField("frozen");
+        frozenField.setAccessible(true);
+        frozenField.setBoolean(accountMap, false);
         Account aliceRef = accountMap.get("alice");
         aliceRef.setBalance(999999); // Tamper with balance
 
@@ -1144,4 +1242,1019 @@ public class CompleteTest {
         }, "Unbalanced ledger should fail validation");
         assertEquals("Balance Does Not Add Up", balanceException.getReason(), "Should report balance mismatch");
     }
+
+    @Test
+    @Order(24)
+    @DisplayName("Test: Merkle engines and leaf formats")
+    void merkleEngineTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            transactions.add(new Transaction(String.valueOf(i), 100 * i, 15, "engine test", master, alice));
+        }
+
+        // TEST 1: Binary engine produces the same legacy roots as MerkleTrees
+        String legacyRoot = new StringMerkleEngine().computeRoot("test-seed", transactions, LeafFormat.LEGACY_STRING);
+        String binaryRoot = new BinaryMerkleEngine().computeRoot("test-seed", transactions, LeafFormat.LEGACY_STRING);
+        assertEquals(legacyRoot, binaryRoot, "Binary engine should match MerkleTrees for legacy leaves");
+
+        // TEST 2: Binary leaves hash differently and only the binary engine supports them
+        String binaryLeafRoot = new BinaryMerkleEngine().computeRoot("test-seed", transactions, LeafFormat.BINARY_V1);
+        assertFalse(legacyRoot.equals(binaryLeafRoot), "Binary leaf format should produce a different root");
+        assertThrows(IllegalArgumentException.class, () -> {
+            new StringMerkleEngine().computeRoot("test-seed", transactions, LeafFormat.BINARY_V1);
+        });
+
+        // TEST 3: Notes imitating other fields no longer collide
+        Transaction plain = new Transaction("x", 1, 10, "a", master, alice);
+        Transaction forged = new Transaction("x", 1, 10, "a, Payer: master", master, alice);
+        assertFalse(Arrays.equals(TransactionCodec.encode(plain), TransactionCodec.encode(forged)));
+        assertEquals(TransactionCodec.encodedLength(plain), TransactionCodec.encode(plain).length);
+
+        // TEST 4: Sealed blocks record the leaf format they were hashed with
+        ledger.setLeafFormat(LeafFormat.BINARY_V1);
+        fundAccount(ledger, "alice", "leaf", 10, 10);
+        ledger.setLeafFormat(LeafFormat.LEGACY_STRING);
+        assertEquals(LeafFormat.BINARY_V1, ledger.getBlock(1).getLeafFormat());
+        assertDoesNotThrow(() -> ledger.validate());
+
+        // TEST 5: A root computation failing part way does not leak into the next one
+        List<Transaction> broken = List.of(new Transaction("broken", 1, 10, "broken", null, alice));
+        BinaryMerkleEngine engine = new BinaryMerkleEngine();
+        assertThrows(NullPointerException.class, () -> engine.computeRoot("test-seed", broken, LeafFormat.BINARY_V1));
+        assertEquals(binaryLeafRoot, engine.computeRoot("test-seed", transactions, LeafFormat.BINARY_V1));
+
+        // TEST 6: Text round-trips through the binary encoding unchanged
+        Transaction paired = new Transaction("pair", 1, 10, "smile \uD83D\uDE00", master, alice);
+        assertEquals(paired.getNote(), TransactionCodec.decode(
+                ByteBuffer.wrap(TransactionCodec.encode(paired))).getNote());
+        Transaction lone = new Transaction("lone", 1, 10, "lone \uD800 \uDC00\uD800", master, alice);
+        byte[] encodedLone = TransactionCodec.encode(lone);
+        assertEquals(TransactionCodec.encodedLength(lone), encodedLone.length);
+        assertEquals(lone.getNote(), TransactionCodec.decode(ByteBuffer.wrap(encodedLone)).getNote());
+        Transaction replaced = new Transaction("lone", 1, 10, "lone ? ??", master, alice);
+        assertFalse(Arrays.equals(encodedLone, TransactionCodec.encode(replaced)));
+
+        // TEST 7: Unpaired surrogates are accepted by both leaf formats, and legacy leaves hash as before
+        assertDoesNotThrow(() -> ledger.processTransaction(lone));
+        assertDoesNotThrow(() -> ledger.processTransaction(new Transaction("lone-\uDC00", 1, 10, "lone", master, alice)));
+        assertDoesNotThrow(() -> ledger.createAccount("lone-\uD800"));
+        assertDoesNotThrow(() -> ledger.processTransaction(paired));
+        assertEquals(new StringMerkleEngine().computeRoot("test-seed", List.of(replaced), LeafFormat.LEGACY_STRING),
+                new StringMerkleEngine().computeRoot("test-seed", List.of(lone), LeafFormat.LEGACY_STRING));
+        assertNotEquals(new BinaryMerkleEngine().computeRoot("test-seed", List.of(replaced), LeafFormat.BINARY_V1),
+                new BinaryMerkleEngine().computeRoot("test-seed", List.of(lone), LeafFormat.BINARY_V1));
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Test: processTransactions(List<Transaction>)")
+    void processTransactionsTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+        Account broke = ledger.createAccount("broke");
+
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 1; i <= 23; i++) {
+            batch.add(new Transaction("batch-" + i, 100, 15, "batch", master, alice));
+        }
+        batch.add(new Transaction("batch-5", 100, 15, "duplicate", master, alice));
+        batch.add(new Transaction("batch-broke", 100, 15, "no funds", broke, alice));
+        batch.add(new Transaction("batch-fee", 100, 5, "low fee", master, alice));
+
+        List<TransactionResult> results = ledger.processTransactions(batch);
+
+        // TEST 1: One result per submitted transaction, in order
+        assertEquals(batch.size(), results.size());
+        assertTrue(results.get(0).isAccepted());
+        assertEquals("batch-1", results.get(0).getTransactionId());
+
+        // TEST 2: Rejections are reported instead of thrown
+        assertEquals("Transaction Id Must Be Unique", results.get(23).getReason());
+        assertEquals("Payer Does Not Have Required Funds", results.get(24).getReason());
+        assertEquals("Transaction Fee Must Be Greater Than 10", results.get(25).getReason());
+        assertNull(ledger.getTransaction("batch-broke"));
+
+        // TEST 3: Batch seals every block it fills
+        assertEquals(2, ledger.getNumberOfBlocks());
+        assertEquals(3, ledger.getUncommittedBlock().getTransactionList().size());
+        assertEquals(2000, ledger.getAccountBalance("alice"));
+        assertDoesNotThrow(() -> ledger.validate());
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("Test: Asynchronous block sealing")
+    void asyncSealingTest() throws LedgerException {
+        ledger.setAsyncSealing(true);
+        try {
+            assertTrue(ledger.isAsyncSealing());
+            fundAccount(ledger, "alice", "async", 35, 10);
+
+            // TEST 1: Next block keeps filling while earlier blocks are sealed in the background
+            assertEquals(4, ledger.getUncommittedBlock().getBlockNumber());
+            assertEquals(5, ledger.getUncommittedBlock().getTransactionList().size());
+
+            // TEST 2: Once the sealer drains, blocks are committed in order and linked
+            ledger.awaitSealing();
+            assertEquals(3, ledger.getNumberOfBlocks());
+            assertEquals(ledger.getBlock(2).getHash(), ledger.getBlock(3).getPreviousHash());
+            assertEquals(ledger.getBlock(3).getHash(), ledger.getUncommittedBlock().getPreviousHash());
+            assertEquals(300, ledger.getAccountBalance("alice"));
+            assertDoesNotThrow(() -> ledger.validate());
+        } finally {
+            ledger.setAsyncSealing(false);
+        }
+    }
+
+    @Test
+    @Order(27)
+    @DisplayName("Test: Configurable block size and time-based sealing")
+    void blockSizePolicyTest() throws Exception {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+
+        ledger.setMaxTransactionsPerBlock(25);
+        try {
+            // TEST 1: Blocks seal at the configured size
+            fundAccount(ledger, "alice", "size", 50, 10);
+            assertEquals(2, ledger.getNumberOfBlocks());
+            assertEquals(25, ledger.getBlock(1).getTransactionList().size());
+            assertEquals(25, ledger.getBlock(1).getMaxTransactions());
+
+            // TEST 2: Partial block is sealed once it reaches the max age
+            ledger.setMaxBlockAge(Duration.ofMillis(50));
+            ledger.processTransaction(new Transaction("age-1", 10, 10, "age policy", master, alice));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (ledger.getNumberOfBlocks() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, ledger.getNumberOfBlocks());
+            assertTrue(ledger.getBlock(3).isSealedByAge());
+            assertEquals(1, ledger.getBlock(3).getTransactionList().size());
+
+            // TEST 3: Each block is validated against the policy it was sealed under
+            assertDoesNotThrow(() -> ledger.validate());
+            assertThrows(IllegalArgumentException.class, () -> ledger.setMaxTransactionsPerBlock(0));
+        } finally {
+            ledger.setMaxBlockAge(null);
+            ledger.setMaxTransactionsPerBlock(10);
+        }
+    }
+
+    @Test
+    @Order(28)
+    @DisplayName("Test: Write-ahead log replay")
+    void writeAheadLogTest(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("ledger.wal");
+
+        ledger.openLog(logFile, Durability.GROUP);
+        try {
+            Account master = ledger.getUncommittedBlock().getAccount("master");
+            Account alice = fundAccount(ledger, "alice", "wal", 13, 10);
+            String blockHash = ledger.getBlock(1).getHash();
+            ledger.closeLog();
+
+            // TEST 1: Replay restores committed blocks and the uncommitted block
+            ledger.reset();
+            assertEquals(0, ledger.getNumberOfBlocks());
+            ledger.openLog(logFile, Durability.GROUP);
+            assertEquals(1, ledger.getNumberOfBlocks());
+            assertEquals(blockHash, ledger.getBlock(1).getHash());
+            assertEquals(100, ledger.getAccountBalance("alice"));
+            assertEquals(3, ledger.getUncommittedBlock().getTransactionList().size());
+            assertNotNull(ledger.getTransaction("wal-13"));
+
+            // TEST 2: Replayed ledger keeps accepting and validating transactions
+            assertThrows(LedgerException.class, () -> ledger.createAccount("alice"));
+            for (int i = 14; i <= 20; i++) {
+                ledger.processTransaction(new Transaction("wal-" + i, 10, 10, "wal", master, alice));
+            }
+            assertEquals(2, ledger.getNumberOfBlocks());
+            assertDoesNotThrow(() -> ledger.validate());
+            ledger.closeLog();
+
+            // TEST 3: A log the ledger cannot replay is left untouched
+            long logSize = Files.size(logFile);
+            Ledger other = Ledger.create("wal-other", "Other Ledger", "other-seed");
+            try {
+                assertThrows(LedgerException.class, () -> other.openLog(logFile, Durability.GROUP));
+            } finally {
+                other.close();
+            }
+            assertEquals(logSize, Files.size(logFile));
+
+            // TEST 4: A torn tail is cut off on replay
+            Files.write(logFile, new byte[]{0, 0, 0, 42, 2, 1}, StandardOpenOption.APPEND);
+            ledger.openLog(logFile, Durability.GROUP);
+            assertEquals(logSize, Files.size(logFile));
+            assertNotNull(ledger.getTransaction("wal-20"));
+        } finally {
+            ledger.closeLog();
+        }
+    }
+
+    @Test
+    @Order(29)
+    @DisplayName("Test: Memory-mapped block store")
+    void blockStoreTest(@TempDir Path tempDir) throws Exception {
+        ledger.openBlockStore(tempDir, BlockStore.MIN_SEGMENT_SIZE);
+        try {
+            fundAccount(ledger, "alice", "store", 100, 10);
+            BlockStore store = ledger.getBlockStore();
+
+            // TEST 1: Committed blocks are appended and segments roll over at the configured size
+            assertEquals(10, store.getLastBlockNumber());
+            assertTrue(store.getSegmentCount() > 1);
+
+            // TEST 2: Stored block matches the committed block
+            Block stored = store.readBlock(7);
+            assertEquals(ledger.getBlock(7).getHash(), stored.getHash());
+            assertEquals(ledger.getBlock(6).getHash(), stored.getPreviousHash());
+            assertEquals("store-61", stored.getTransactionList().get(0).getTransactionId());
+            assertNull(store.readBlock(11));
+
+            // TEST 3: Blocks evicted from the heap are read back through getBlock with their balances
+            Block onHeap = ledger.getBlock(3);
+            ledger.setHeapBlockRetention(2);
+            Block evicted = ledger.getBlock(3);
+            assertNotSame(onHeap, evicted);
+            assertEquals(onHeap.getHash(), evicted.getHash());
+            assertEquals(300, evicted.getAccount("alice").getBalance());
+            assertSame(ledger.getTransaction("store-21"), evicted.getTransactionList().get(0));
+            assertEquals(10, ledger.getBlocks(1, 10).count());
+            assertEquals(5, ledger.getTransactionsForAccount("alice", 1, 5).getTransactions().size());
+            assertTrue(MerkleProof.verify(ledger.getTransaction("store-5"), ledger.getInclusionProof("store-5"),
+                    ledger.getBlock(1).getHash()));
+            assertDoesNotThrow(() -> ledger.validate());
+            assertDoesNotThrow(() -> ledger.validateIncremental());
+            assertTrue(ledger.deepVerify().isValid());
+            assertEquals(10, ledger.deepVerify().getBlocksVerified());
+
+            // TEST 4: Closing the store puts the evicted blocks back on the heap
+            ledger.closeBlockStore();
+            assertEquals(300, ledger.getBlock(3).getAccount("alice").getBalance());
+            assertDoesNotThrow(() -> ledger.validate());
+            ledger.openBlockStore(tempDir, BlockStore.MIN_SEGMENT_SIZE);
+
+            // TEST 5: Index is rebuilt from the segment footers on open
+            ledger.closeBlockStore();
+            try (BlockStore reopened = new BlockStore(tempDir, BlockStore.MIN_SEGMENT_SIZE)) {
+                assertEquals(10, reopened.getLastBlockNumber());
+                assertEquals(ledger.getBlock(10).getHash(), reopened.readBlock(10).getHash());
+            }
+        } finally {
+            ledger.setHeapBlockRetention(0);
+            ledger.closeBlockStore();
+        }
+    }
+
+    @Test
+    @Order(30)
+    @DisplayName("Test: Account-state snapshots")
+    void snapshotTest(@TempDir Path tempDir) throws Exception {
+        Path logFile = tempDir.resolve("ledger.wal");
+
+        ledger.enableSnapshots(tempDir.resolve("snapshots"), 2, 2);
+        ledger.openLog(logFile, Durability.GROUP);
+        try {
+            fundAccount(ledger, "alice", "snap", 53, 10);
+            ledger.getSnapshotStore().awaitWrites();
+            String tipHash = ledger.getBlock(5).getHash();
+            ledger.closeLog();
+
+            // Snapshots keep account state only, so they do not grow with the committed transactions
+            Path snapshots = tempDir.resolve("snapshots");
+            assertEquals(Files.size(snapshots.resolve("snapshot-0000000002.snap")),
+                    Files.size(snapshots.resolve("snapshot-0000000004.snap")));
+
+            // Damage the first log record, which restart no longer has to read
+            byte[] logBytes = Files.readAllBytes(logFile);
+            logBytes[Integer.BYTES + 1] ^= 1;
+            Files.write(logFile, logBytes);
+
+            // TEST 1: Restart loads the newest snapshot and replays the log from the snapshot's block on
+            ledger.openLog(logFile, Durability.GROUP);
+            assertEquals(5, ledger.getNumberOfBlocks());
+            assertEquals(tipHash, ledger.getBlock(5).getHash());
+            assertEquals(500, ledger.getAccountBalance("alice"));
+            assertEquals(3, ledger.getUncommittedBlock().getTransactionList().size());
+            assertDoesNotThrow(() -> ledger.validate());
+
+            // TEST 2: Restored snapshot carries the uncommitted block and older snapshots are pruned
+            ledger.closeLog();
+            ledger.takeSnapshot();
+            ledger.getSnapshotStore().awaitWrites();
+            assertTrue(ledger.restoreSnapshot());
+            assertEquals(3, ledger.getUncommittedBlock().getTransactionList().size());
+            assertEquals(530, ledger.getUncommittedBlock().getAccount("alice").getBalance());
+            try (Stream<Path> files = Files.list(snapshots)) {
+                assertEquals(2, files.filter(file -> file.toString().endsWith(".snap")).count());
+            }
+
+            // TEST 3: Ids committed before the snapshot stay taken, also across later snapshots
+            Account restoredMaster = ledger.getUncommittedBlock().getAccount("master");
+            Account restoredAlice = ledger.getUncommittedBlock().getAccount("alice");
+            for (String id : new String[]{"snap-1", "snap-50", "snap-53"}) {
+                LedgerException exception = assertThrows(LedgerException.class, () -> ledger.processTransaction(
+                        new Transaction(id, 10, 10, "reused", restoredMaster, restoredAlice)));
+                assertEquals("Transaction Id Must Be Unique", exception.getReason());
+            }
+            for (int i = 54; i <= 60; i++) {
+                ledger.processTransaction(new Transaction("snap-" + i, 10, 10, "snapshot", restoredMaster, restoredAlice));
+            }
+            ledger.getSnapshotStore().awaitWrites();
+            assertTrue(ledger.restoreSnapshot());
+            assertThrows(LedgerException.class, () -> ledger.processTransaction(new Transaction("snap-1", 10, 10,
+                    "reused", ledger.getUncommittedBlock().getAccount("master"),
+                    ledger.getUncommittedBlock().getAccount("alice"))));
+        } finally {
+            ledger.closeLog();
+            ledger.disableSnapshots();
+        }
+    }
+
+    @Test
+    @Order(31)
+    @DisplayName("Test: validateIncremental()")
+    void validateIncrementalTest() throws Exception {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+
+        LedgerException emptyException = assertThrows(LedgerException.class, () -> ledger.validateIncremental());
+        assertEquals("No Block Has Been Committed", emptyException.getReason());
+
+        for (int i = 1; i <= 20; i++) {
+            ledger.processTransaction(new Transaction("inc-" + i, 100, 15, "incremental", master, alice));
+        }
+        assertDoesNotThrow(() -> ledger.validateIncremental());
+
+        // TEST 1: Blocks below the watermark are not revisited, a full validation still checks them
+        Block block1 = ledger.getBlock(1);
+        Transaction removedTx = block1.getTransactionList().remove(0);
+        assertDoesNotThrow(() -> ledger.validateIncremental());
+        assertThrows(LedgerException.class, () -> ledger.validate());
+        block1.getTransactionList().add(0, removedTx);
+
+        // TEST 2: Newly committed blocks are checked
+        for (int i = 21; i <= 30; i++) {
+            ledger.processTransaction(new Transaction("inc-" + i, 100, 15, "incremental", master, alice));
+        }
+        Block block3 = ledger.getBlock(3);
+        block3.setPreviousHash("WRONG_HASH_VALUE");
+        LedgerException hashException = assertThrows(LedgerException.class, () -> ledger.validateIncremental());
+        assertTrue(hashException.getReason().contains("Hash Is Inconsistent: 3"));
+
+        block3.setPreviousHash(ledger.getBlock(2).getHash());
+        assertDoesNotThrow(() -> ledger.validateIncremental());
+
+        // TEST 3: A tampered balance fails the balance check without revisiting earlier blocks
+        Field accountMapField = Block.class.getDeclaredField("accountBalanceMap");
+        accountMapField.setAccessible(true);
+        Map<String, Account> accountMap = (Map<String, Account>) accountMapField.get(ledger.getBlock(3));
+        Field frozenField = accountMap.getClass().getDeclaredField("frozen");
+        frozenField.setAccessible(true);
+        frozenField.setBoolean(accountMap, false);
+        accountMap.get("alice").setBalance(999999);
+        LedgerException balanceException = assertThrows(LedgerException.class, () -> ledger.validateIncremental());
+        assertEquals("Balance Does Not Add Up", balanceException.getReason());
+    }
+
+    @Test
+    @Order(32)
+    @DisplayName("Test: deepVerify()")
+    void deepVerifyTest() throws LedgerException {
+        assertThrows(LedgerException.class, () -> ledger.deepVerify());
+
+        fundAccount(ledger, "alice", "deep", 500, 10);
+
+        // TEST 1: Consistent chain verifies with throughput reported
+        VerificationResult result = ledger.deepVerify();
+        assertTrue(result.isValid());
+        assertEquals(50, result.getBlocksVerified());
+        assertTrue(result.getBlocksPerSecond() > 0);
+
+        // TEST 2: Tampered transaction is caught by recomputing the Merkle root
+        ledger.getBlock(40).getTransactionList().get(0).setNote("tampered");
+        ledger.getBlock(23).setPreviousHash("WRONG_HASH_VALUE");
+
+        // TEST 3: Parallel run reports the same first inconsistent block as a sequential run
+        VerificationResult parallel = ledger.deepVerify();
+        VerificationResult sequential = ledger.deepVerify(new ForkJoinPool(1));
+        assertEquals(23, parallel.getFirstInvalidBlock());
+        assertEquals(sequential.getFirstInvalidBlock(), parallel.getFirstInvalidBlock());
+        assertEquals(sequential.getReason(), parallel.getReason());
+
+        ledger.getBlock(23).setPreviousHash(ledger.getBlock(22).getHash());
+        assertEquals(40, ledger.deepVerify().getFirstInvalidBlock());
+        assertEquals("Merkle Root Mismatch", ledger.deepVerify().getReason());
+    }
+
+    @Test
+    @Order(33)
+    @DisplayName("Test: getInclusionProof()")
+    void inclusionProofTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+
+        ledger.setCacheMerkleLevels(true);
+        try {
+            fundAccount(ledger, "alice", "proof", 25, 10);
+
+            // TEST 1: Every committed transaction proves against its block hash
+            for (int i = 1; i <= 20; i++) {
+                Transaction transaction = ledger.getTransaction("proof-" + i);
+                MerkleProof proof = ledger.getInclusionProof("proof-" + i);
+                Block block = ledger.getBlock(proof.getBlockNumber());
+                assertTrue(block.hasMerkleLevels());
+                assertTrue(MerkleProof.verify(transaction, proof, block.getHash()));
+            }
+
+            // TEST 2: Proof fails for an altered transaction or a different block
+            Transaction transaction = ledger.getTransaction("proof-3");
+            MerkleProof proof = ledger.getInclusionProof("proof-3");
+            Transaction forged = new Transaction("proof-3", 11, 10, "inclusion proof", master, alice);
+            assertFalse(MerkleProof.verify(forged, proof, ledger.getBlock(1).getHash()));
+            assertFalse(MerkleProof.verify(transaction, proof, ledger.getBlock(2).getHash()));
+
+            // TEST 3: Transactions outside a committed block have no proof
+            assertThrows(LedgerException.class, () -> ledger.getInclusionProof("proof-21"));
+            assertThrows(LedgerException.class, () -> ledger.getInclusionProof("missing"));
+        } finally {
+            ledger.setCacheMerkleLevels(false);
+        }
+    }
+
+    @Test
+    @Order(34)
+    @DisplayName("Test: create(String, String, String)")
+    void createLedgerTest() throws LedgerException {
+        Ledger first = Ledger.create("ledger-one", "First Ledger", "seed-one");
+        Ledger second = Ledger.create("ledger-two", "Second Ledger", "seed-two");
+        try {
+            // TEST 1: Named ledgers are registered and names are unique
+            assertSame(first, Ledger.getLedger("ledger-one"));
+            assertTrue(Ledger.getLedgerNames().contains("ledger-two"));
+            LedgerException exception = assertThrows(LedgerException.class,
+                    () -> Ledger.create("ledger-one", "Duplicate", "seed"));
+            assertEquals("Ledger Already Exists", exception.getReason());
+
+            // TEST 2: Each ledger keeps its own chain, separate from the singleton
+            for (Ledger named : new Ledger[]{first, second}) {
+                fundAccount(named, "bob", "named", 10, 5);
+            }
+            assertEquals(1, first.getNumberOfBlocks());
+            assertEquals(1, second.getNumberOfBlocks());
+            assertEquals(0, ledger.getNumberOfBlocks());
+            assertEquals(50, first.getAccountBalance("bob"));
+            assertFalse(first.getBlock(1).getHash().equals(second.getBlock(1).getHash()));
+            assertDoesNotThrow(() -> first.validate());
+
+            // TEST 3: Background threads start only once a ledger seals in the background
+            assertFalse(hasThread("ledger-sealer-ledger-one"));
+            assertFalse(hasThread("ledger-seal-timer-ledger-one"));
+            first.setAsyncSealing(true);
+            Account master = first.getUncommittedBlock().getAccount("master");
+            for (int i = 11; i <= 20; i++) {
+                first.processTransaction(new Transaction("named-" + i, 5, 10, "named ledger", master,
+                        first.getUncommittedBlock().getAccount("bob")));
+            }
+            first.awaitSealing();
+            assertTrue(hasThread("ledger-sealer-ledger-one"));
+            assertFalse(hasThread("ledger-sealer-ledger-two"));
+        } finally {
+            first.close();
+            second.close();
+        }
+
+        // TEST 4: Closed ledgers leave the registry
+        assertNull(Ledger.getLedger("ledger-one"));
+        assertNull(Ledger.getLedger("ledger-two"));
+    }
+
+    @Test
+    @Order(35)
+    @DisplayName("Test: ShardedLedger processTransaction(Transaction)")
+    void shardedLedgerTest() throws LedgerException {
+        try (ShardedLedger sharded = new ShardedLedger("Sharded", "Sharded Blockchain", "test-seed", 4)) {
+            Account master = sharded.getAccount("master");
+            for (int i = 0; i < 8; i++) {
+                sharded.createAccount("user" + i);
+            }
+
+            // TEST 1: Transfers within and across shards settle to the receivers
+            for (int i = 0; i < 8; i++) {
+                sharded.processTransaction(new Transaction("fund-" + i, 1000, 10, "fund",
+                        master, sharded.getAccount("user" + i)));
+            }
+            long[] masterBalances = new long[sharded.getShardCount()];
+            for (int i = 0; i < sharded.getShardCount(); i++) {
+                masterBalances[i] = sharded.getShard(i).getUncommittedBlock().getAccount("master").getLongBalance();
+                long expected = i == sharded.getShardIndex("master") ? Integer.MAX_VALUE - 8 * 1010L : Integer.MAX_VALUE;
+                assertEquals(expected, masterBalances[i]);
+            }
+            int transfers = 0;
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 8; j++) {
+                    if (i != j) {
+                        sharded.processTransaction(new Transaction("move-" + i + "-" + j, 10, 10, "move",
+                                sharded.getAccount("user" + i), sharded.getAccount("user" + j)));
+                        transfers++;
+                    }
+                }
+            }
+            assertEquals(56, transfers);
+            assertTrue(sharded.getNumberOfBlocks() > 0);
+            assertNotNull(sharded.getTransaction("move-0-1"));
+            for (int i = 0; i < 8; i++) {
+                assertEquals(1000 - 7 * 20 + 7 * 10, sharded.getAccount("user" + i).getLongBalance());
+            }
+
+            // TEST 2: Settlement runs through the bridge accounts and leaves every master untouched
+            for (int i = 0; i < sharded.getShardCount(); i++) {
+                assertEquals(masterBalances[i],
+                        sharded.getShard(i).getUncommittedBlock().getAccount("master").getLongBalance());
+            }
+            assertFalse(sharded.getAccountBalances().containsKey(ShardedLedger.BRIDGE_ADDRESS));
+            assertThrows(LedgerException.class, () -> sharded.processTransaction(new Transaction("bridge-use",
+                    10, 10, "bridge", sharded.getAccount("user0"), sharded.getAccount(ShardedLedger.BRIDGE_ADDRESS))));
+
+            // TEST 3: Transaction ids are unique across shards
+            String other = null;
+            for (int i = 0; i < 8 && other == null; i++) {
+                if (sharded.getShardIndex("user" + i) != sharded.getShardIndex("master")) {
+                    other = "user" + i;
+                }
+            }
+            assumeTrue(other != null);
+            Transaction duplicate = new Transaction("fund-0", 10, 10, "duplicate",
+                    sharded.getAccount(other), sharded.getAccount(other));
+            assertThrows(LedgerException.class, () -> sharded.processTransaction(duplicate));
+            assertThrows(LedgerException.class, () -> sharded.processTransaction(new Transaction("move-0-1#credit",
+                    10, 10, "duplicate", sharded.getAccount("user0"), sharded.getAccount("user0"))));
+
+            // TEST 4: Every shard keeps its own balance total
+            assertDoesNotThrow(() -> sharded.validate());
+
+            // TEST 5: Overdrawn cross-shard transfer leaves no trace in either shard
+            String payer = "user0";
+            String receiver = null;
+            for (int i = 1; i < 8 && receiver == null; i++) {
+                if (sharded.getShardIndex("user" + i) != sharded.getShardIndex(payer)) {
+                    receiver = "user" + i;
+                }
+            }
+            assumeTrue(receiver != null);
+            Transaction overdraft = new Transaction("overdraft", 5000, 10, "overdraft",
+                    sharded.getAccount(payer), sharded.getAccount(receiver));
+            assertThrows(LedgerException.class, () -> sharded.processTransaction(overdraft));
+            assertNull(sharded.getTransaction("overdraft"));
+
+            // TEST 6: Transfer whose credit and refund legs are both rejected stays pending
+            Ledger payerShard = sharded.getShard(sharded.getShardIndex(payer));
+            Ledger receiverShard = sharded.getShard(sharded.getShardIndex(receiver));
+            Account payerMaster = payerShard.getUncommittedBlock().getAccount("master");
+            Account receiverMaster = receiverShard.getUncommittedBlock().getAccount("master");
+            payerShard.processTransaction(new Transaction("stuck#refund", 0, 10, "taken", payerMaster, payerMaster));
+            receiverShard.processTransaction(new Transaction("stuck#credit", 0, 10, "taken",
+                    receiverMaster, receiverMaster));
+            long payerBalance = sharded.getAccount(payer).getLongBalance();
+            Transaction stuck = new Transaction("stuck", 100, 10, "stuck",
+                    sharded.getAccount(payer), sharded.getAccount(receiver));
+            LedgerException failure = assertThrows(LedgerException.class, () -> sharded.processTransaction(stuck));
+            assertTrue(failure.getReason().startsWith("Cross-Shard Credit Failed: Transaction Id Must Be Unique"));
+            assertEquals(1, failure.getSuppressed().length);
+            assertEquals(Set.of("stuck"), sharded.getPendingTransfers());
+            assertEquals(payerBalance - 110, sharded.getAccount(payer).getLongBalance());
+            assertDoesNotThrow(() -> sharded.validate());
+            assertThrows(LedgerException.class, () -> sharded.recoverPendingTransfers());
+            assertEquals(Set.of("stuck"), sharded.getPendingTransfers());
+
+            // TEST 7: Debit leg left without its credit leg is refunded on recovery
+            payerShard.processTransaction(new Transaction("orphan", 50, 10, "orphan",
+                    sharded.getAccount(payer), payerShard.getUncommittedBlock().getAccount(ShardedLedger.BRIDGE_ADDRESS)));
+            assertThrows(LedgerException.class, () -> sharded.validate());
+            assertThrows(LedgerException.class, () -> sharded.recoverPendingTransfers());
+            assertNotNull(sharded.getTransaction("orphan#refund"));
+            assertEquals(payerBalance - 120, sharded.getAccount(payer).getLongBalance());
+            assertEquals(Set.of("stuck"), sharded.getPendingTransfers());
+            assertDoesNotThrow(() -> sharded.validate());
+        }
+    }
+
+    @Test
+    @Order(36)
+    @DisplayName("Test: Account balances beyond int range")
+    void longBalanceTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = fundAccount(ledger, "alice", "long", 10, 100);
+
+        // TEST 1: Accounts handed out by the ledger follow the live balance
+        assertEquals(1000, alice.getBalance());
+        assertEquals(1000, ledger.getAccountBalance("alice"));
+
+        // TEST 2: Amount plus fee beyond Integer.MAX_VALUE is an overdraft, not a wrapped sum
+        long remaining = master.getLongBalance() - 10;
+        ledger.processTransaction(new Transaction("long-all", (int) remaining, 10, "long balance", master, alice));
+        assertEquals(0, master.getLongBalance());
+        assertEquals(1000 + remaining, alice.getLongBalance());
+        LedgerException exception = assertThrows(LedgerException.class, () -> ledger.processTransaction(
+                new Transaction("long-big", Integer.MAX_VALUE, 15, "overflow", alice, master)));
+        assertEquals("Payer Does Not Have Required Funds", exception.getReason());
+        assertEquals(1000 + remaining, alice.getLongBalance());
+        assertNull(ledger.getTransaction("long-big"));
+
+        // TEST 3: Committed blocks keep their own balances
+        assertEquals(1000, ledger.getBlock(1).getAccount("alice").getBalance());
+
+        for (int i = 1; i <= 9; i++) {
+            ledger.processTransaction(new Transaction("long-fill-" + i, 0, 10, "fill", alice, alice));
+        }
+        assertEquals(alice.getLongBalance(), ledger.getBlock(2).getAccount("alice").getLongBalance());
+        assertEquals(alice.getLongBalance(), ledger.getLongAccountBalance("alice"));
+        assertEquals(1000L, ledger.getLongAccountBalance("alice", 1));
+        assertDoesNotThrow(() -> ledger.validate());
+
+        // TEST 4: Balances beyond int range are kept in full and never wrap through the int accessor
+        Account big = new Account("big", Integer.MAX_VALUE + 1L);
+        assertEquals(Integer.MAX_VALUE + 1L, big.getLongBalance());
+        assertThrows(ArithmeticException.class, big::getBalance);
+
+        // TEST 5: Decoding rejects amounts and fees that do not fit an int instead of narrowing them
+        byte[] encoded = TransactionCodec.encode(new Transaction("long-codec", 7, 10, "codec", alice, master));
+        int amountOffset = 1 + Integer.BYTES + "long-codec".length();
+        ByteBuffer.wrap(encoded).putLong(amountOffset, Integer.MAX_VALUE + 1L);
+        assertThrows(IllegalArgumentException.class, () -> TransactionCodec.decode(ByteBuffer.wrap(encoded)));
+        ByteBuffer.wrap(encoded).putLong(amountOffset, 7).putLong(amountOffset + Long.BYTES, Long.MIN_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> TransactionCodec.decode(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    @Order(37)
+    @DisplayName("Test: Off-heap live account state")
+    void offHeapAccountsTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        ledger.createAccount("alice");
+        ledger.processTransaction(new Transaction("heap-1", 500, 10, "heap", master,
+                ledger.getUncommittedBlock().getAccount("alice")));
+
+        ledger.setOffHeapAccounts(true);
+        try {
+            // TEST 1: Switching keeps the live balances
+            assertTrue(ledger.isOffHeapAccounts());
+            Account alice = ledger.getUncommittedBlock().getAccount("alice");
+            assertEquals(500, alice.getBalance());
+
+            // TEST 2: Accounts are created and found in the off-heap store
+            for (int i = 0; i < 2000; i++) {
+                ledger.createAccount("offheap-" + i);
+            }
+            assertNotNull(ledger.getUncommittedBlock().getAccount("offheap-1999"));
+            assertThrows(LedgerException.class, () -> ledger.createAccount("offheap-7"));
+
+            // TEST 3: Transfers commit blocks that validate
+            for (int i = 1; i <= 9; i++) {
+                ledger.processTransaction(new Transaction("off-" + i, 10, 10, "off heap", alice,
+                        ledger.getUncommittedBlock().getAccount("offheap-" + i)));
+            }
+            assertEquals(1, ledger.getNumberOfBlocks());
+            assertEquals(320, ledger.getAccountBalance("alice"));
+            assertEquals(10, ledger.getAccountBalance("offheap-9"));
+            assertDoesNotThrow(() -> ledger.validate());
+
+            // TEST 4: Addresses beyond ASCII are found in the off-heap index
+            ledger.createAccount("caf\u00e9-\uD834\uDD1E");
+            assertNotNull(ledger.getUncommittedBlock().getAccount("caf\u00e9-\uD834\uDD1E"));
+            assertNull(ledger.getUncommittedBlock().getAccount("cafe-\uD834\uDD1E"));
+            ledger.createAccount("lone-\uD800");
+            ledger.createAccount("lone-?");
+            assertNotEquals(ledger.getAccountId("lone-\uD800"), ledger.getAccountId("lone-?"));
+            assertTrue(ledger.getUncommittedBlock().getAccountBalanceMap().keySet().stream()
+                    .anyMatch("lone-\uD800"::equals));
+
+            // TEST 5: Committed blocks resolve their addresses through the off-heap table
+            assertEquals(320, ledger.getBlock(1).getAccount("alice").getBalance());
+            assertEquals(2002, ledger.getBlock(1).getAccountBalanceMap().size());
+        } finally {
+            ledger.setOffHeapAccounts(false);
+        }
+
+        // TEST 6: Committed balances stay readable once the accounts move back to the heap
+        assertEquals(10, ledger.getBlock(1).getAccount("offheap-9").getBalance());
+        assertEquals(320, ledger.getBalanceSnapshot().getLongBalance("alice"));
+    }
+
+    @Test
+    @Order(38)
+    @DisplayName("Test: Dense account numbers")
+    void accountIdTest() throws LedgerException {
+        ledger.createAccount("alice");
+        ledger.createAccount("bob");
+
+        // TEST 1: Accounts are numbered in creation order
+        assertEquals(0, ledger.getAccountId("master"));
+        assertEquals(1, ledger.getAccountId("alice"));
+        assertEquals(2, ledger.getAccountId("bob"));
+        assertEquals("bob", ledger.getAccountAddress(2));
+
+        // TEST 2: Unknown accounts and numbers are not resolved
+        assertEquals(-1, ledger.getAccountId("carol"));
+        assertNull(ledger.getAccountAddress(3));
+
+        // TEST 3: Numbers survive moving the account state off the heap
+        ledger.setOffHeapAccounts(true);
+        try {
+            assertEquals(1, ledger.getAccountId("alice"));
+            assertEquals("alice", ledger.getAccountAddress(1));
+        } finally {
+            ledger.setOffHeapAccounts(false);
+        }
+    }
+
+    @Test
+    @Order(39)
+    @DisplayName("Test: Account state retention")
+    void accountStateRetentionTest() throws LedgerException {
+        Account alice = ledger.createAccount("alice");
+
+        ledger.setAccountStateRetention(2);
+        try {
+            fundAccount(ledger, "alice", "retain", 40, 10);
+
+            // TEST 1: Only the newest blocks keep their account state
+            assertEquals(4, ledger.getNumberOfBlocks());
+            assertTrue(ledger.getUncommittedBlock().getPreviousBlock().getPreviousBlock()
+                    .getPreviousBlock().isAccountStatePruned());
+            assertFalse(ledger.getUncommittedBlock().getPreviousBlock().isAccountStatePruned());
+
+            // TEST 2: Pruned blocks are returned with their account state rebuilt
+            Block first = ledger.getBlock(1);
+            assertFalse(first.isAccountStatePruned());
+            assertEquals(100, first.getAccount("alice").getBalance());
+            assertEquals(200, ledger.getBlock(2).getAccount("alice").getBalance());
+            assertEquals(400, ledger.getAccountBalance("alice"));
+
+            // TEST 3: Validation does not need the pruned account state
+            assertDoesNotThrow(() -> ledger.validate());
+
+            // TEST 4: Rebuilding replays the account numbers recorded when each block was sealed,
+            // not the addresses of the Accounts the Transactions hold
+            alice.setAddress("renamed");
+            assertEquals(200, ledger.getBlock(2).getAccount("alice").getBalance());
+            assertNull(ledger.getBlock(2).getAccount("renamed"));
+        } finally {
+            ledger.setAccountStateRetention(0);
+        }
+    }
+
+    @Test
+    @Order(40)
+    @DisplayName("Test: Historical account balances")
+    void historicalBalanceTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        fundAccount(ledger, "alice", "history", 20, 10);
+        ledger.createAccount("bob");
+        for (int i = 1; i <= 10; i++) {
+            ledger.processTransaction(new Transaction("history-fill-" + i, 0, 10, "history", master, master));
+        }
+
+        // TEST 1: Balances are returned as of each block
+        assertEquals(100, ledger.getAccountBalance("alice", 1));
+        assertEquals(200, ledger.getAccountBalance("alice", 2));
+        assertEquals(200, ledger.getAccountBalance("alice", 3));
+        assertEquals(0, ledger.getAccountBalance("bob", 3));
+
+        // TEST 2: Accounts created after the block do not exist yet
+        LedgerException notCreated = assertThrows(LedgerException.class,
+                () -> ledger.getAccountBalance("bob", 2));
+        assertEquals("Account Does Not Exist", notCreated.getReason());
+
+        // TEST 3: Blocks must be committed
+        LedgerException notCommitted = assertThrows(LedgerException.class,
+                () -> ledger.getAccountBalance("alice", 4));
+        assertEquals("Block Is Not Committed", notCommitted.getReason());
+    }
+
+    @Test
+    @Order(41)
+    @DisplayName("Test: Transactions by account")
+    void accountTransactionsTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = ledger.createAccount("alice");
+        Account bob = ledger.createAccount("bob");
+
+        for (int i = 1; i <= 30; i++) {
+            Account receiver = i % 3 == 0 ? bob : alice;
+            ledger.processTransaction(new Transaction("account-" + i, 10, 10, "statement", master, receiver));
+        }
+
+        // TEST 1: Only the account's Transactions are listed, in chain order
+        TransactionPage all = ledger.getTransactionsForAccount("bob", 1, 100);
+        assertEquals(10, all.getTransactions().size());
+        assertEquals("account-3", all.getTransactions().get(0).getTransactionId());
+        assertEquals("account-30", all.getTransactions().get(9).getTransactionId());
+        assertFalse(all.hasMore());
+
+        // TEST 2: Pages stop at the limit and name the position the next page starts at
+        TransactionPage first = ledger.getTransactionsForAccount("alice", 1, 10);
+        assertEquals(10, first.getTransactions().size());
+        assertEquals("account-14", first.getTransactions().get(9).getTransactionId());
+        assertEquals(2, first.getNextBlock());
+        assertEquals(5, first.getNextIndex());
+        TransactionPage second = ledger.getTransactionsForAccount("alice", first.getNextBlock(),
+                first.getNextIndex(), 10);
+        assertEquals("account-16", second.getTransactions().get(0).getTransactionId());
+
+        // TEST 3: A block holding more matches than the limit is split across pages
+        List<String> paged = new ArrayList<>();
+        TransactionPage page = ledger.getTransactionsForAccount("alice", 1, 3);
+        while (true) {
+            assertTrue(page.getTransactions().size() <= 3);
+            page.getTransactions().forEach(transaction -> paged.add(transaction.getTransactionId()));
+            if (!page.hasMore()) {
+                break;
+            }
+            assertEquals(3, page.getTransactions().size());
+            page = ledger.getTransactionsForAccount("alice", page.getNextBlock(), page.getNextIndex(), 3);
+        }
+        assertEquals(20, paged.size());
+        assertEquals(List.of("account-1", "account-2", "account-4"), paged.subList(0, 3));
+        assertEquals("account-29", paged.get(19));
+
+        // TEST 4: Unknown accounts are rejected
+        LedgerException unknown = assertThrows(LedgerException.class,
+                () -> ledger.getTransactionsForAccount("carol", 1, 10));
+        assertEquals("Account Does Not Exist", unknown.getReason());
+
+        // TEST 5: A page stops at a block sealed in the background until the block is committed
+        MerkleEngine engine = ledger.getMerkleEngine();
+        CountDownLatch hashing = new CountDownLatch(1);
+        ledger.setMerkleEngine((seed, transactions, leafFormat) -> {
+            try {
+                hashing.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return engine.computeRoot(seed, transactions, leafFormat);
+        });
+        ledger.setAsyncSealing(true);
+        try {
+            for (int i = 31; i <= 40; i++) {
+                ledger.processTransaction(new Transaction("account-" + i, 10, 10, "statement", master, alice));
+            }
+            TransactionPage committed = ledger.getTransactionsForAccount("alice", 1, 100);
+            assertEquals(20, committed.getTransactions().size());
+            assertTrue(committed.hasMore());
+            assertEquals(4, committed.getNextBlock());
+            assertEquals(0, committed.getNextIndex());
+
+            hashing.countDown();
+            ledger.awaitSealing();
+            TransactionPage sealed = ledger.getTransactionsForAccount("alice", committed.getNextBlock(),
+                    committed.getNextIndex(), 100);
+            assertEquals(10, sealed.getTransactions().size());
+            assertEquals("account-31", sealed.getTransactions().get(0).getTransactionId());
+            assertFalse(sealed.hasMore());
+        } finally {
+            hashing.countDown();
+            ledger.setAsyncSealing(false);
+            ledger.setMerkleEngine(engine);
+        }
+    }
+
+    @Test
+    @Order(42)
+    @DisplayName("Test: Block and transaction streams")
+    void blockStreamTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = fundAccount(ledger, "alice", "stream", 35, 10);
+
+        // TEST 1: Blocks are streamed in order within the committed range
+        assertEquals(List.of(2, 3), ledger.getBlocks(2, 10).map(Block::getBlockNumber)
+                .collect(Collectors.toList()));
+        assertEquals(0, ledger.getBlocks(4, 10).count());
+
+        // TEST 2: Transactions are flattened in chain order
+        assertEquals("stream-11", ledger.getTransactions(2, 3).findFirst().orElseThrow().getTransactionId());
+        assertEquals(30, ledger.getTransactions(1, 3).count());
+
+        // TEST 3: Blocks committed while a stream is consumed are not included
+        Iterator<Block> blocks = ledger.getBlocks(1, Integer.MAX_VALUE).iterator();
+        blocks.next();
+        for (int i = 36; i <= 45; i++) {
+            ledger.processTransaction(new Transaction("stream-" + i, 10, 10, "stream", master, alice));
+        }
+        assertEquals(4, ledger.getNumberOfBlocks());
+        blocks.next();
+        blocks.next();
+        assertFalse(blocks.hasNext());
+    }
+
+    @Test
+    @Order(43)
+    @DisplayName("Test: Shared balance snapshot")
+    void balanceSnapshotTest() throws LedgerException {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        Account alice = fundAccount(ledger, "alice", "snapshot", 10, 10);
+
+        // TEST 1: Every reader shares the snapshot sealed with the last block
+        BalanceSnapshot snapshot = ledger.getBalanceSnapshot();
+        assertSame(snapshot, ledger.getAccountBalances());
+        assertEquals(1, snapshot.getBlockNumber());
+        assertEquals(100, snapshot.get("alice"));
+
+        // TEST 2: The view is read-only
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put("alice", 0));
+
+        // TEST 3: Balances can be visited without building a map
+        long[] total = new long[1];
+        snapshot.forEachBalance((address, balance) -> total[0] += balance);
+        assertEquals(Integer.MAX_VALUE - 100, total[0]);
+
+        // TEST 4: Later blocks do not change the snapshot
+        for (int i = 11; i <= 20; i++) {
+            ledger.processTransaction(new Transaction("snapshot-" + i, 10, 10, "snapshot", master, alice));
+        }
+        assertEquals(100, snapshot.get("alice"));
+        assertEquals(200, ledger.getAccountBalances().get("alice"));
+    }
+
+    @Test
+    @Order(44)
+    @DisplayName("Test: Concurrent processTransaction(Transaction)")
+    void concurrentTransactionsTest() throws Exception {
+        Account master = ledger.getUncommittedBlock().getAccount("master");
+        int threads = 8;
+        int rounds = 100;
+        for (int t = 0; t < threads; t++) {
+            ledger.processTransaction(new Transaction("fund-" + t, 5000, 10, "fund", master,
+                    ledger.createAccount("worker" + t)));
+            ledger.createAccount("sink" + t);
+        }
+        Account shared = ledger.createAccount("shared");
+
+        AtomicInteger accepted = new AtomicInteger(threads);
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                workers.add(pool.submit(() -> {
+                    Account own = ledger.getUncommittedBlock().getAccount("worker" + worker);
+                    Account sink = ledger.getUncommittedBlock().getAccount("sink" + worker);
+                    Account next = ledger.getUncommittedBlock().getAccount("worker" + (worker + 1) % threads);
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        //Private sinks never conflict; the ring and the shared account always do
+                        Account receiver = i % 3 == 0 ? sink : i % 3 == 1 ? next : shared;
+                        ledger.processTransaction(new Transaction("worker" + worker + "-" + i, 5, 10,
+                                "concurrent", own, receiver));
+                        accepted.incrementAndGet();
+
+                        //Every worker races for the same id; only one may win it
+                        try {
+                            ledger.processTransaction(new Transaction("race-" + i, 1, 10, "race", own, shared));
+                            accepted.incrementAndGet();
+                        } catch (LedgerException e) {
+                            assertEquals("Transaction Id Must Be Unique", e.getReason());
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        ledger.awaitSealing();
+
+        // TEST 1: Each raced id is accepted exactly once
+        assertEquals((threads - 1) * rounds, duplicates.get());
+        for (int i = 0; i < rounds; i++) {
+            assertNotNull(ledger.getTransaction("race-" + i));
+        }
+
+        // TEST 2: Every accepted transaction is recorded once
+        int recorded = ledger.getUncommittedBlock().getTransactionList().size();
+        recorded += ledger.getBlocks(1, Integer.MAX_VALUE).mapToInt(block -> block.getTransactionList().size()).sum();
+        assertEquals(accepted.get(), recorded);
+
+        // TEST 3: Total supply is conserved: balances and collected fees add up to the initial supply
+        long total = ledger.getUncommittedBlock().getAccount("master").getLongBalance()
+                + ledger.getUncommittedBlock().getAccount("shared").getLongBalance();
+        for (int t = 0; t < threads; t++) {
+            total += ledger.getUncommittedBlock().getAccount("worker" + t).getLongBalance();
+            total += ledger.getUncommittedBlock().getAccount("sink" + t).getLongBalance();
+        }
+        assertEquals(Integer.MAX_VALUE, total + 10L * accepted.get());
+        assertDoesNotThrow(() -> ledger.validate());
+    }
 }